@@ -0,0 +1,63 @@
+package mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared setup for the benchmarks: a four player headless game on a fixed seed.
+ */
+final class BenchmarkGames {
+    static final List<String> PLAYERS = List.of("Alice", "Bob", "Cara", "Dan");
+
+    private BenchmarkGames() {}
+
+    static Game newGame(long seed) {
+        return new Game(PLAYERS, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(seed));
+    }
+
+    /**
+     * Builds a board of {@code size} squares: Go first, then a repeating mix of chance,
+     * income tax and go-to-jail squares among properties, with jail half way round.
+     */
+    static GameBoard generatedBoard(int size) {
+        GameBoard board = new GameBoard(size);
+        board.setSquare(1, new GoSquare());
+        for (int position = 2; position <= size; position++) {
+            Square square;
+            if (position % 37 == 0) {
+                square = new GoToJailSquare(position);
+            } else if (position % 23 == 0) {
+                square = new IncomeTaxSquare(position);
+            } else if (position % 10 == 0) {
+                square = new ChanceSquare(position);
+            } else {
+                int price = 100 + (position * 7919) % 800;
+                square = new PropertySquare(position, "Lot " + position, price, price / 10);
+            }
+            board.setSquare(position, square);
+        }
+        board.setJailPosition(size / 2);
+        return board;
+    }
+
+    static List<String> playerNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            names.add("Player " + i);
+        }
+        return names;
+    }
+
+    /**
+     * Returns a game that has played {@code turns} turns, so ownership and cash look
+     * like the middle of a real game.
+     */
+    static Game midGame(long seed, int turns) {
+        Game game = newGame(seed);
+        for (int i = 0; i < turns; i++) {
+            game.takeTurn(game.getCurrentPlayer());
+            game.moveToNextPlayer();
+        }
+        return game;
+    }
+}
@@ -0,0 +1,65 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete games printed to {@code /dev/null}: through an autoflushing
+ * {@link PrintStream}, as {@link System#out} prints, against through a
+ * {@link ConsoleRenderer}, synced at the end of each game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConsoleBenchmark {
+    private PrintStream printStream;
+    private ConsoleRenderer renderer;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        printStream = new PrintStream(new FileOutputStream("/dev/null"), true);
+        renderer = new ConsoleRenderer(new FileOutputStream("/dev/null").getChannel());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        printStream.close();
+        renderer.close();
+    }
+
+    @Benchmark
+    public Game playPrinted() {
+        Game game = new Game(BenchmarkGames.PLAYERS, new AlwaysBuyStrategy(), new ConsoleEvents(printStream),
+                new GameRandom(seed++));
+        game.play();
+        return game;
+    }
+
+    @Benchmark
+    public Game playRendered() {
+        Game game = new Game(BenchmarkGames.PLAYERS, new AlwaysBuyStrategy(), renderer.events(),
+                new GameRandom(seed++));
+        game.play();
+        renderer.sync();
+        return game;
+    }
+}
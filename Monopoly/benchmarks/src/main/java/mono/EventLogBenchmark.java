@@ -0,0 +1,50 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete headless games with no event sink against games recorded into an
+ * {@link EventRing} feeding an {@link EventAggregator}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EventLogBenchmark {
+    private EventRing ring;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ring = new EventRing(4096);
+        ring.addConsumer(new EventAggregator());
+    }
+
+    @Benchmark
+    public Game playSilent() {
+        Game game = BenchmarkGames.newGame(seed++);
+        game.play();
+        return game;
+    }
+
+    @Benchmark
+    public Game playRecorded() {
+        Game game = new Game(BenchmarkGames.PLAYERS, new AlwaysBuyStrategy(), ring, new GameRandom(seed++));
+        game.play();
+        return game;
+    }
+}
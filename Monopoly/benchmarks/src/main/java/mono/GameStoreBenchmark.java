@@ -0,0 +1,72 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stepping many resident games a few rounds at a time, kept either as {@link Game}s on
+ * the heap or in a {@link GameStore} through one view. Games that finish start over.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class GameStoreBenchmark {
+    private static final int GAMES = 200_000;
+
+    @Param({"1", "10"})
+    public int rounds;
+
+    private Game[] heapGames;
+    private GameStore store;
+    private GameStore.View view;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        heapGames = new Game[GAMES];
+        store = new GameStore(GameBoard.standard(), BenchmarkGames.PLAYERS);
+        for (int i = 0; i < GAMES; i++) {
+            heapGames[i] = BenchmarkGames.newGame(i);
+            store.add(GameRandom.forGame(0, i));
+        }
+        view = store.view(new AlwaysBuyStrategy(), GameEvents.NONE);
+    }
+
+    @Benchmark
+    public Game stepOnHeap() {
+        int i = next++ % GAMES;
+        Game game = heapGames[i];
+        for (int round = 0; round < rounds && !game.isGameOver(); round++) {
+            game.playRound();
+        }
+        if (game.isGameOver()) {
+            heapGames[i] = BenchmarkGames.newGame(next);
+        }
+        return game;
+    }
+
+    @Benchmark
+    public boolean stepInStore() {
+        int slot = next++ % GAMES;
+        boolean over = view.playRounds(slot, rounds);
+        if (over) {
+            store.reset(slot, GameRandom.forGame(0, next));
+        }
+        return over;
+    }
+}
@@ -0,0 +1,61 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turn cost on generated boards; it should stay flat as the board and table grow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LargeBoardBenchmark {
+    @Param({"20", "1000", "10000"})
+    public int boardSize;
+
+    @Param({"4", "200"})
+    public int players;
+
+    private GameBoard board;
+    private Game game;
+    private int turns;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void buildBoard() {
+        board = BenchmarkGames.generatedBoard(boardSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void newGame() {
+        game = new Game(board, BenchmarkGames.playerNames(players), new AlwaysBuyStrategy(),
+                GameEvents.NONE, new GameRandom(seed++));
+        turns = 0;
+    }
+
+    @Benchmark
+    public Player takeTurn() {
+        if (++turns == 100 * players) {
+            newGame();
+        }
+        Player player = game.getCurrentPlayer();
+        game.takeTurn(player);
+        game.moveToNextPlayer();
+        return player;
+    }
+}
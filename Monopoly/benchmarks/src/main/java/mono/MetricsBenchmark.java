@@ -0,0 +1,44 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of {@link GameMetrics}: the same headless game played in a JVM with metrics
+ * off, where the hooks should compile away, and in one with them on.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+    private long seed;
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dmono.metrics=false")
+    public Game playWithMetricsOff() {
+        return play();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dmono.metrics=true")
+    public Game playWithMetricsOn() {
+        return play();
+    }
+
+    private Game play() {
+        Game game = BenchmarkGames.newGame(seed++);
+        game.play();
+        return game;
+    }
+}
@@ -0,0 +1,126 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory round trips of the binary {@link GameSnapshot} format against Java
+ * serialization of the same game in the old object layout, and {@link Game#fork()} as
+ * the cheapest way to copy a game. Run {@link #main} for the encoded sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+    private Game game;
+    private LegacySaves.SavedGame legacyGame;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.midGame(7, 40);
+        legacyGame = toLegacy(game);
+    }
+
+    @Benchmark
+    public Game binaryRoundTrip() throws IOException {
+        return GameSnapshot.fromBytes(GameSnapshot.toBytes(game));
+    }
+
+    @Benchmark
+    public Game fork() {
+        return game.fork();
+    }
+
+    @Benchmark
+    public Object serializedRoundTrip() throws IOException, ClassNotFoundException {
+        byte[] bytes = serialize(legacyGame);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Builds the object graph the old {@code saveGame} wrote for {@code game}.
+     */
+    static LegacySaves.SavedGame toLegacy(Game game) {
+        LegacySaves.SavedGame saved = new LegacySaves.SavedGame();
+        saved.players = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            LegacySaves.SavedPlayer savedPlayer = new LegacySaves.SavedPlayer();
+            savedPlayer.name = player.getName();
+            savedPlayer.money = player.getMoney();
+            savedPlayer.position = player.getPosition();
+            savedPlayer.inJail = player.isInJail();
+            savedPlayer.turnsInJail = player.getTurnsInJail();
+            saved.players.add(savedPlayer);
+        }
+
+        List<Player> players = game.getPlayers();
+        saved.board = new LegacySaves.SavedSquare[game.getBoardSize() + 1];
+        for (int position = 1; position <= game.getBoardSize(); position++) {
+            Square square = game.getSquare(position);
+            LegacySaves.SavedSquare savedSquare;
+            if (square instanceof PropertySquare) {
+                PropertySquare property = (PropertySquare) square;
+                LegacySaves.SavedPropertySquare savedProperty = new LegacySaves.SavedPropertySquare();
+                savedProperty.price = property.getPrice();
+                savedProperty.rent = property.getRent();
+                int owner = players.indexOf(game.getOwner(position));
+                savedProperty.owner = owner >= 0 ? saved.players.get(owner) : null;
+                savedSquare = savedProperty;
+            } else if (square instanceof ChanceSquare) {
+                LegacySaves.SavedChanceSquare chance = new LegacySaves.SavedChanceSquare();
+                chance.random = new Random();
+                savedSquare = chance;
+            } else {
+                savedSquare = new LegacySaves.SavedPlainSquare();
+            }
+            savedSquare.position = position;
+            savedSquare.name = square.getName();
+            saved.board[position] = savedSquare;
+        }
+
+        saved.dice1 = new LegacySaves.SavedDice();
+        saved.dice1.random = new Random();
+        saved.dice2 = new LegacySaves.SavedDice();
+        saved.dice2.random = new Random();
+        saved.currentPlayerIndex = game.getCurrentPlayerIndex();
+        saved.currentRound = game.getCurrentRound();
+        return saved;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Game game = BenchmarkGames.midGame(7, 40);
+        System.out.printf("Binary snapshot: %d bytes%n", GameSnapshot.toBytes(game).length);
+        System.out.printf("Java serialization: %d bytes%n", serialize(toLegacy(game)).length);
+    }
+}
@@ -0,0 +1,64 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status strings shown by the interactive menu, on a game with owned properties, built
+ * from scratch by {@link Game} and from the cache of a {@link StatusView}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatusBenchmark {
+    private Game game;
+    private StatusView view;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.midGame(7, 40);
+        view = new StatusView(game);
+        buffer = new StringBuilder(1024);
+    }
+
+    @Benchmark
+    public String gameStatus() {
+        return game.getGameStatus();
+    }
+
+    @Benchmark
+    public String allPlayersStatus() {
+        return game.getAllPlayersStatus();
+    }
+
+    @Benchmark
+    public String cachedGameStatus() {
+        return view.getGameStatus();
+    }
+
+    @Benchmark
+    public StringBuilder cachedGameStatusIntoBuffer() {
+        buffer.setLength(0);
+        return view.appendGameStatus(buffer);
+    }
+
+    @Benchmark
+    public StringBuilder cachedJson() {
+        buffer.setLength(0);
+        return view.appendJson(buffer);
+    }
+}
@@ -0,0 +1,57 @@
+package mono;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single turns and complete 100-round games, both headless.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnBenchmark {
+    private static final int TURNS_PER_GAME = 400;
+
+    private Game game;
+    private int turns;
+    private long seed;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        game = BenchmarkGames.newGame(seed++);
+        turns = 0;
+    }
+
+    @Benchmark
+    public Player takeTurn() {
+        // Start a fresh game every 400 turns so money and ownership stay in a realistic range.
+        if (++turns == TURNS_PER_GAME) {
+            setUp();
+        }
+        Player player = game.getCurrentPlayer();
+        game.takeTurn(player);
+        game.moveToNextPlayer();
+        return player;
+    }
+
+    @Benchmark
+    public Game playHeadless() {
+        Game fullGame = BenchmarkGames.newGame(seed++);
+        fullGame.play();
+        return fullGame;
+    }
+}
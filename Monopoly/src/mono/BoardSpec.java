@@ -0,0 +1,639 @@
+package mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads and writes board definitions. The text form has one directive or square per
+ * line; blank lines and lines starting with {@code #} are ignored:
+ * <pre>
+ *   size 20
+ *   jail 11
+ *   1 go
+ *   2 property 800 90 Central
+ *   9,19 chance
+ *   group 2,3,5 100
+ * </pre>
+ * {@code size} comes first; {@code jail} is optional and defaults as in
+ * {@link GameBoard#GameBoard(int)}. A square line lists one or more positions separated
+ * by commas, then a type: {@code go}, {@code property}, {@code chance}, {@code tax},
+ * {@code jail}, {@code gotojail} or {@code parking}. A property is followed by its
+ * price, its rent and its name, which runs to the end of the line. Positions left out
+ * stay unset, as on a board still being designed. A {@code group} line makes the listed
+ * properties a colour group and gives the cost of a house on them
+ * ({@link GameBoard#addGroup}).
+ * <p>
+ * The binary form, big-endian:
+ * <pre>
+ *   int    magic "MNBD"
+ *   byte   version
+ *   int    board size
+ *   int    jail position
+ *   then for each position: byte type (0 unset, then the types above in order),
+ *          and for a property int price, int rent and the name as modified UTF-8
+ *   version 2 only: int group count, then for each group:
+ *          int house cost, int position count, int per position
+ * </pre>
+ * Boards without groups are written as version 1.
+ * The binary form of a board is also its identity in {@link BoardCache}.
+ */
+final class BoardSpec {
+    static final int MAGIC = 0x4D4E4244;
+    static final byte VERSION = 2;
+
+    private static final String[] TYPES = {null, "go", "property", "chance", "tax", "jail", "gotojail", "parking"};
+    private static final byte UNSET = 0;
+    private static final byte GO = 1;
+    private static final byte PROPERTY = 2;
+    private static final byte CHANCE = 3;
+    private static final byte TAX = 4;
+    private static final byte JAIL = 5;
+    private static final byte GO_TO_JAIL = 6;
+    private static final byte PARKING = 7;
+
+    static final String STANDARD =
+            "# The standard 20 square board.\n"
+            + "size 20\n"
+            + "jail 11\n"
+            + "1 go\n"
+            + "2 property 800 90 Central\n"
+            + "3 property 700 65 Wan Chai\n"
+            + "4 tax\n"
+            + "5 property 600 60 Stanley\n"
+            + "6 jail\n"
+            + "7 property 400 10 Shek O\n"
+            + "8 property 500 40 Mong Kok\n"
+            + "9,19 chance\n"
+            + "10 property 400 15 Tsing Yi\n"
+            + "11 parking\n"
+            + "12 property 700 75 Shatin\n"
+            + "13 property 400 20 Tuen Mun\n"
+            + "14 property 500 25 Tai Po\n"
+            + "15 property 400 10 Sai Kung\n"
+            + "16 gotojail\n"
+            + "17 property 400 25 Yuen Long\n"
+            + "18 property 600 25 Tai O\n"
+            + "20 property 850 100 Peak\n";
+
+    private BoardSpec() {}
+
+    /**
+     * Parses the text form into a new board.
+     */
+    static GameBoard parse(CharSequence text) throws IOException {
+        GameBoard board = null;
+        int[] positions = new int[4];
+        int lineNumber = 0;
+        int start = 0;
+        while (start < text.length()) {
+            int end = start;
+            while (end < text.length() && text.charAt(end) != '\n') {
+                end++;
+            }
+            lineNumber++;
+            Line line = new Line(text, start, end, lineNumber);
+            start = end + 1;
+            if (line.atEnd() || line.peek() == '#') {
+                continue;
+            }
+
+            if (board == null) {
+                if (!line.word().equals("size")) {
+                    throw line.error("expected 'size' first");
+                }
+                int size = line.number();
+                if (size < 2 || size > GameBoard.MAX_SIZE) {
+                    throw line.error("board size must be between 2 and " + GameBoard.MAX_SIZE);
+                }
+                board = new GameBoard(size);
+            } else if (Character.isLetter(line.peek())) {
+                String directive = line.word();
+                if (directive.equals("jail")) {
+                    board.setJailPosition(line.position(board));
+                } else if (directive.equals("group")) {
+                    int count = line.positions(board, positions);
+                    positions = line.positionBuffer;
+                    try {
+                        board.addGroup(line.number(), Arrays.copyOf(positions, count));
+                    } catch (IllegalArgumentException e) {
+                        throw line.error(e.getMessage());
+                    }
+                } else {
+                    throw line.error("unknown directive");
+                }
+            } else {
+                int count = line.positions(board, positions);
+                positions = line.positionBuffer;
+                String word = line.word();
+                int type = indexOf(word);
+                if (type < 0) {
+                    throw line.error("unknown square type '" + word + "'");
+                }
+                int price = 0;
+                int rent = 0;
+                String name = null;
+                if (type == PROPERTY) {
+                    price = line.number();
+                    rent = line.number();
+                    name = line.rest();
+                    if (name.isEmpty()) {
+                        throw line.error("property has no name");
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    board.setSquare(positions[i], square(type, positions[i], name, price, rent));
+                }
+            }
+        }
+        if (board == null) {
+            throw new IOException("Board spec has no size");
+        }
+        return board;
+    }
+
+    /**
+     * Returns the text form of {@code board}, which {@link #parse} reads back.
+     */
+    static String format(GameBoard board) {
+        StringBuilder text = new StringBuilder(32 * board.getSize());
+        text.append("size ").append(board.getSize()).append('\n');
+        text.append("jail ").append(board.getJailPosition()).append('\n');
+        for (int position = 1; position <= board.getSize(); position++) {
+            Square square = board.getSquare(position);
+            if (square == null) {
+                continue;
+            }
+            text.append(position).append(' ').append(TYPES[typeOf(square)]);
+            if (square instanceof PropertySquare) {
+                PropertySquare property = (PropertySquare) square;
+                text.append(' ').append(property.getPrice()).append(' ').append(property.getRent())
+                        .append(' ').append(property.getName());
+            }
+            text.append('\n');
+        }
+        for (int group = 0; group < board.getGroupCount(); group++) {
+            text.append("group ");
+            int[] members = board.getGroup(group);
+            for (int i = 0; i < members.length; i++) {
+                text.append(i == 0 ? "" : ",").append(members[i]);
+            }
+            text.append(' ').append(board.getHouseCost(group)).append('\n');
+        }
+        return text.toString();
+    }
+
+    static byte[] toBytes(GameBoard board) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 16 * board.getSize());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(board.getGroupCount() > 0 ? VERSION : 1);
+            out.writeInt(board.getSize());
+            out.writeInt(board.getJailPosition());
+            for (int position = 1; position <= board.getSize(); position++) {
+                Square square = board.getSquare(position);
+                byte type = typeOf(square);
+                out.writeByte(type);
+                if (type == PROPERTY) {
+                    PropertySquare property = (PropertySquare) square;
+                    out.writeInt(property.getPrice());
+                    out.writeInt(property.getRent());
+                    out.writeUTF(property.getName());
+                }
+            }
+            if (board.getGroupCount() > 0) {
+                out.writeInt(board.getGroupCount());
+                for (int group = 0; group < board.getGroupCount(); group++) {
+                    int[] members = board.getGroup(group);
+                    out.writeInt(board.getHouseCost(group));
+                    out.writeInt(members.length);
+                    for (int position : members) {
+                        out.writeInt(position);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static GameBoard fromBytes(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a board file");
+            }
+            byte version = in.readByte();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported board version " + version);
+            }
+            int size = in.readInt();
+            if (size < 2 || size > GameBoard.MAX_SIZE) {
+                throw new IOException("Invalid board size " + size);
+            }
+            GameBoard board = new GameBoard(size);
+            int jailPosition = in.readInt();
+            if (jailPosition < 1 || jailPosition > size) {
+                throw new IOException("Invalid jail position " + jailPosition);
+            }
+            board.setJailPosition(jailPosition);
+            for (int position = 1; position <= size; position++) {
+                byte type = in.readByte();
+                if (type < UNSET || type > PARKING) {
+                    throw new IOException("Invalid square type " + type + " at " + position);
+                }
+                if (type == PROPERTY) {
+                    int price = in.readInt();
+                    int rent = in.readInt();
+                    board.setSquare(position, square(type, position, in.readUTF(), price, rent));
+                } else if (type != UNSET) {
+                    board.setSquare(position, square(type, position, null, 0, 0));
+                }
+            }
+            int groups = version >= 2 ? in.readInt() : 0;
+            for (int group = 0; group < groups; group++) {
+                int houseCost = in.readInt();
+                int count = in.readInt();
+                if (count < 1 || count > size) {
+                    throw new IOException("Invalid group of " + count + " squares");
+                }
+                int[] members = new int[count];
+                for (int i = 0; i < count; i++) {
+                    members[i] = in.readInt();
+                }
+                try {
+                    board.addGroup(houseCost, members);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage());
+                }
+            }
+            return board;
+        } catch (EOFException e) {
+            throw new IOException("Board file is truncated", e);
+        }
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= 4
+                && ((bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF) == MAGIC;
+    }
+
+    private static Square square(int type, int position, String name, int price, int rent) {
+        switch (type) {
+            case GO:
+                return new GoSquare();
+            case PROPERTY:
+                return new PropertySquare(position, name, price, rent);
+            case CHANCE:
+                return new ChanceSquare(position);
+            case TAX:
+                return new IncomeTaxSquare(position);
+            case JAIL:
+                return new JailSquare();
+            case GO_TO_JAIL:
+                return new GoToJailSquare(position);
+            case PARKING:
+                return new FreeParkingSquare(position);
+            default:
+                throw new IllegalArgumentException("Unknown square type " + type);
+        }
+    }
+
+    private static byte typeOf(Square square) {
+        if (square == null) return UNSET;
+        if (square instanceof PropertySquare) return PROPERTY;
+        if (square instanceof GoSquare) return GO;
+        if (square instanceof ChanceSquare) return CHANCE;
+        if (square instanceof IncomeTaxSquare) return TAX;
+        if (square instanceof JailSquare) return JAIL;
+        if (square instanceof GoToJailSquare) return GO_TO_JAIL;
+        if (square instanceof FreeParkingSquare) return PARKING;
+        throw new IllegalArgumentException("Square " + square.getName() + " has no board spec type");
+    }
+
+    private static int indexOf(String type) {
+        for (int i = 1; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A cursor over one line of the text form.
+     */
+    private static final class Line {
+        final CharSequence text;
+        final int end;
+        final int number;
+        int index;
+
+        Line(CharSequence text, int start, int end, int number) {
+            this.text = text;
+            this.end = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+            this.number = number;
+            this.index = start;
+            skipSpaces();
+        }
+
+        boolean atEnd() {
+            return index >= end;
+        }
+
+        char peek() {
+            return atEnd() ? '\n' : text.charAt(index);
+        }
+
+        String word() throws IOException {
+            int start = index;
+            while (!atEnd() && Character.isLetter(text.charAt(index))) {
+                index++;
+            }
+            if (start == index) {
+                throw error("expected a word");
+            }
+            String word = text.subSequence(start, index).toString();
+            skipSpaces();
+            return word;
+        }
+
+        int number() throws IOException {
+            long value = 0;
+            int start = index;
+            while (!atEnd() && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+                value = value * 10 + (text.charAt(index++) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw error("number too large");
+                }
+            }
+            if (start == index) {
+                throw error("expected a number");
+            }
+            skipSpaces();
+            return (int) value;
+        }
+
+        int[] positionBuffer;
+
+        /**
+         * Reads a comma separated list of positions into {@code buffer}, or into a larger
+         * copy left in {@link #positionBuffer}, and returns how many there were.
+         */
+        int positions(GameBoard board, int[] buffer) throws IOException {
+            int count = 0;
+            buffer[count++] = position(board);
+            while (peek() == ',') {
+                index++;
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, count * 2);
+                }
+                buffer[count++] = position(board);
+            }
+            positionBuffer = buffer;
+            return count;
+        }
+
+        int position(GameBoard board) throws IOException {
+            int position = number();
+            if (position < 1 || position > board.getSize()) {
+                throw error("position " + position + " is not between 1 and " + board.getSize());
+            }
+            return position;
+        }
+
+        String rest() {
+            String rest = text.subSequence(index, end).toString().trim();
+            index = end;
+            return rest;
+        }
+
+        IOException error(String message) {
+            return new IOException("Board spec line " + number + ": " + message);
+        }
+
+        private void skipSpaces() {
+            while (!atEnd() && (text.charAt(index) == ' ' || text.charAt(index) == '\t')) {
+                index++;
+            }
+        }
+    }
+}
+
+/**
+ * A checked, read-only board that any number of games share: the squares, the kind of
+ * each square {@link Game} dispatches on, the jail position, the colour groups and a
+ * precomputed rent table. Squares are immutable, so one layout can back every game on
+ * the same board at once. Games reach a layout through {@link GameBoard#layout()}, which
+ * takes it from {@link BoardCache}.
+ * <p>
+ * {@code rents} holds {@link #RENT_LEVELS} entries per position: the printed rent, the
+ * rent when the owner holds the whole group, and the rent with one to four houses and
+ * with a hotel, so rent is one array read whatever the rules in play. Each group also
+ * keeps its members as bit masks over the 64-bit words of {@link GameState}'s holdings,
+ * so whether a player owns the whole group is one AND per word the group spans, which
+ * for any sensible board is a single word.
+ */
+final class BoardLayout {
+    static final int RENT_LEVELS = 7;
+    static final int FULL_GROUP = 1;
+    static final int HOTEL = 5;
+
+    /**
+     * Rent as a multiple of the printed rent, by level: printed, whole group, one to
+     * four houses, hotel.
+     */
+    private static final int[] RENT_MULTIPLIERS = {1, 2, 5, 15, 45, 80, 125};
+
+    final Square[] squares;
+    final byte[] kinds;
+    final int size;
+    final int jailPosition;
+
+    final int[] rents;
+    /**
+     * The group of each position, or -1.
+     */
+    final int[] groupOf;
+    final int groupCount;
+    final int[] houseCost;
+    /**
+     * Group {@code g}'s members are {@code groupMembers[groupStart[g]]} up to
+     * {@code groupStart[g + 1]}, and its masks {@code maskWord}/{@code maskBits} from
+     * {@code maskStart[g]} up to {@code maskStart[g + 1]}.
+     */
+    final int[] groupStart;
+    final int[] groupMembers;
+    final int[] maskStart;
+    final int[] maskWord;
+    final long[] maskBits;
+
+    BoardLayout(GameBoard board) {
+        this.size = board.getSize();
+        this.jailPosition = board.getJailPosition();
+        this.squares = new Square[size + 1];
+        this.kinds = new byte[size + 1];
+        this.rents = new int[(size + 1) * RENT_LEVELS];
+        for (int i = 1; i <= size; i++) {
+            Square square = board.getSquare(i);
+            if (square == null) {
+                throw new IllegalArgumentException("Square " + i + " is not set");
+            }
+            if (square instanceof PropertySquare && square.getPosition() != i) {
+                throw new IllegalArgumentException("Property " + square.getName() + " is placed at " + i
+                        + " but has position " + square.getPosition());
+            }
+            squares[i] = square;
+            kinds[i] = Game.kindOf(square);
+            if (square instanceof PropertySquare) {
+                long rent = ((PropertySquare) square).getRent();
+                for (int level = 0; level < RENT_LEVELS; level++) {
+                    rents[i * RENT_LEVELS + level] = (int) Math.min(Integer.MAX_VALUE, rent * RENT_MULTIPLIERS[level]);
+                }
+            }
+        }
+
+        this.groupOf = new int[size + 1];
+        Arrays.fill(groupOf, -1);
+        this.groupCount = board.getGroupCount();
+        this.houseCost = new int[groupCount];
+        this.groupStart = new int[groupCount + 1];
+        this.maskStart = new int[groupCount + 1];
+        int[] members = new int[0];
+        int[] words = new int[0];
+        long[] bits = new long[0];
+        int memberCount = 0;
+        int maskCount = 0;
+        for (int group = 0; group < groupCount; group++) {
+            houseCost[group] = board.getHouseCost(group);
+            groupStart[group] = memberCount;
+            maskStart[group] = maskCount;
+            for (int position : board.getGroup(group)) {
+                if (!(squares[position] instanceof PropertySquare)) {
+                    throw new IllegalArgumentException("Square " + position + " in group " + (group + 1)
+                            + " is not a property");
+                }
+                groupOf[position] = group;
+                if (memberCount == members.length) {
+                    members = Arrays.copyOf(members, memberCount * 2 + 4);
+                }
+                members[memberCount++] = position;
+
+                int word = position >>> 6;
+                int mask = maskStart[group];
+                while (mask < maskCount && words[mask] != word) {
+                    mask++;
+                }
+                if (mask == maskCount) {
+                    if (maskCount == words.length) {
+                        words = Arrays.copyOf(words, maskCount * 2 + 4);
+                        bits = Arrays.copyOf(bits, maskCount * 2 + 4);
+                    }
+                    words[maskCount++] = word;
+                }
+                bits[mask] |= 1L << position;
+            }
+        }
+        groupStart[groupCount] = memberCount;
+        maskStart[groupCount] = maskCount;
+        this.groupMembers = Arrays.copyOf(members, memberCount);
+        this.maskWord = Arrays.copyOf(words, maskCount);
+        this.maskBits = Arrays.copyOf(bits, maskCount);
+    }
+}
+
+/**
+ * Interns {@link BoardLayout}s by content, so games on equal boards share one layout
+ * however their {@link GameBoard}s were built. The key is the board's binary form from
+ * {@link BoardSpec#toBytes}, hashed with 64-bit FNV-1a and compared in full on a hash
+ * match. Programs use a handful of boards, so entries are never evicted.
+ */
+final class BoardCache {
+    private static final ConcurrentMap<Key, BoardLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private BoardCache() {}
+
+    /**
+     * Returns the shared layout of the standard board.
+     */
+    static BoardLayout standard() {
+        return Standard.LAYOUT;
+    }
+
+    /**
+     * Returns the shared layout with the same squares and jail position as {@code board}.
+     * Boards with squares the spec cannot express get a layout of their own.
+     */
+    static BoardLayout intern(GameBoard board) {
+        byte[] bytes;
+        try {
+            bytes = BoardSpec.toBytes(board);
+        } catch (IllegalArgumentException e) {
+            return new BoardLayout(board);
+        }
+        Key key = new Key(bytes);
+        BoardLayout layout = LAYOUTS.get(key);
+        if (layout == null) {
+            layout = new BoardLayout(board);
+            BoardLayout existing = LAYOUTS.putIfAbsent(key, layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    static int size() {
+        return LAYOUTS.size();
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of {@code bytes}.
+     */
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class Standard {
+        static final BoardLayout LAYOUT;
+
+        static {
+            try {
+                LAYOUT = intern(BoardSpec.parse(BoardSpec.STANDARD));
+            } catch (IOException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private static final class Key {
+        final byte[] bytes;
+        final long hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = hash(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).hash == hash && Arrays.equals(((Key) other).bytes, bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+}
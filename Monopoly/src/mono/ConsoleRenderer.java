@@ -0,0 +1,467 @@
+package mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Console output written by a background thread. The game's thread only queues work:
+ * {@link #events()} records each event as a call to make on a {@link ConsoleEvents},
+ * and {@link #out()} collects menu and prompt text as bytes. The render thread formats
+ * the events, with the same {@link ConsoleEvents} wording as before, into a 64 KiB
+ * direct buffer and writes whatever has queued up to the channel in one go, instead
+ * of every {@code printf} locking and flushing {@link System#out}.
+ * <p>
+ * Queued work is handed over when a turn or round starts, when a game ends, after
+ * {@value #MAX_BATCH} items, and on {@link #sync()}. Reading from a {@link GameInput}
+ * syncs the console first, so a prompt and everything before it is on screen before
+ * the game waits for an answer. Events and text keep the order they were queued in.
+ * <p>
+ * Events are formatted later, on another thread, from the names of the players and
+ * squares, which do not change during a game; amounts are captured when queued. A
+ * write that fails, or an event that cannot be formatted, is reported once by the
+ * next {@link #sync()}; the render thread carries on with the rest of the queue.
+ */
+final class ConsoleRenderer implements Closeable {
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BATCH = 1024;
+
+    private static final Object CLOSE = new Object();
+
+    private static volatile ConsoleRenderer console;
+
+    private final WritableByteChannel channel;
+    private final BlockingQueue<Object> batches = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    // Queued by the game's threads, guarded by this.
+    private List<Object> pending = new ArrayList<>();
+    private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+    private boolean unsynced;
+    private final PrintStream out;
+    private final GameEvents events = new QueuedEvents();
+
+    // Used only by the render thread.
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ConsoleEvents printer;
+    private volatile IOException failure;
+
+    ConsoleRenderer(WritableByteChannel channel) {
+        this.channel = channel;
+        this.out = new PrintStream(new QueuedText(), false, Charset.defaultCharset());
+        this.printer = new ConsoleEvents(new PrintStream(new BufferedChannel(), false, Charset.defaultCharset()));
+        this.thread = new Thread(this::render, "console-renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the renderer for standard output, which the interactive game prints
+     * through. It writes to whatever {@link System#out} is when a batch is written, so
+     * {@link System#setOut} still redirects it, and is synced when the JVM shuts down.
+     * Text printed to {@link System#out} directly is not queued, and overtakes console
+     * output that has not been synced yet; call {@link #syncConsole()} before it.
+     */
+    static ConsoleRenderer console() {
+        ConsoleRenderer current = console;
+        if (current == null) {
+            synchronized (ConsoleRenderer.class) {
+                current = console;
+                if (current == null) {
+                    current = new ConsoleRenderer(new StandardOutput());
+                    Runtime.getRuntime().addShutdownHook(new Thread(current::sync, "console-renderer-sync"));
+                    console = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Waits until everything queued for the console is written, if the console has
+     * been used at all.
+     */
+    static void syncConsole() {
+        ConsoleRenderer current = console;
+        if (current != null) {
+            current.sync();
+        }
+    }
+
+    /**
+     * Returns a stream for text such as menus and prompts. Printing to it only queues
+     * the bytes.
+     */
+    PrintStream out() {
+        return out;
+    }
+
+    /**
+     * Returns a sink that prints every event in the {@link ConsoleEvents} wording.
+     */
+    GameEvents events() {
+        return events;
+    }
+
+    /**
+     * Hands everything queued so far to the render thread without waiting for it.
+     */
+    synchronized void flush() {
+        sealText();
+        if (!pending.isEmpty()) {
+            batches.add(pending);
+            pending = new ArrayList<>();
+            unsynced = true;
+        }
+    }
+
+    /**
+     * Waits until everything queued so far has been written to the channel.
+     *
+     * @throws UncheckedIOException if a write failed or an event could not be
+     *         formatted since the last sync
+     */
+    void sync() {
+        CountDownLatch written = new CountDownLatch(1);
+        synchronized (this) {
+            flush();
+            if (!unsynced) {
+                checkFailure();
+                return;
+            }
+            unsynced = false;
+            batches.add(written);
+        }
+        try {
+            written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Writes everything queued, stops the render thread and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        batches.add(CLOSE);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void checkFailure() {
+        IOException failed = failure;
+        if (failed != null) {
+            failure = null;
+            throw new UncheckedIOException(failed);
+        }
+    }
+
+    private synchronized void queue(Consumer<GameEvents> event) {
+        sealText();
+        pending.add(event);
+        if (pending.size() >= MAX_BATCH) {
+            flush();
+        }
+    }
+
+    private synchronized void queueText(byte[] bytes, int offset, int length) {
+        text.write(bytes, offset, length);
+    }
+
+    private synchronized void queueText(int b) {
+        text.write(b);
+    }
+
+    private void sealText() {
+        if (text.size() > 0) {
+            pending.add(text.toByteArray());
+            text.reset();
+        }
+    }
+
+    private void render() {
+        List<CountDownLatch> written = new ArrayList<>();
+        try {
+            while (true) {
+                boolean closing = false;
+                Object batch = batches.take();
+                try {
+                    do {
+                        if (batch == CLOSE) {
+                            closing = true;
+                        } else if (batch instanceof CountDownLatch) {
+                            written.add((CountDownLatch) batch);
+                        } else {
+                            render((List<?>) batch);
+                        }
+                        batch = batches.poll();
+                    } while (batch != null);
+                    writeBuffer();
+                } finally {
+                    for (CountDownLatch latch : written) {
+                        latch.countDown();
+                    }
+                    written.clear();
+                }
+                if (closing) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void render(List<?> batch) {
+        for (Object item : batch) {
+            if (item instanceof byte[]) {
+                put((byte[]) item, 0, ((byte[]) item).length);
+            } else {
+                try {
+                    ((Consumer<GameEvents>) item).accept(printer);
+                } catch (RuntimeException e) {
+                    failure = new IOException("Could not format console output", e);
+                }
+            }
+        }
+    }
+
+    private void put(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                writeBuffer();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void put(int b) {
+        if (!buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        buffer.put((byte) b);
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Menu and prompt text from the game's thread.
+     */
+    private final class QueuedText extends OutputStream {
+        @Override
+        public void write(int b) {
+            queueText(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            queueText(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Formatted events on the render thread.
+     */
+    private final class BufferedChannel extends OutputStream {
+        @Override
+        public void write(int b) {
+            put(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            put(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Standard output as it is when each batch is written, through {@link System#out}.
+     */
+    private static final class StandardOutput implements WritableByteChannel {
+        private byte[] bytes = new byte[BUFFER_SIZE];
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            source.get(bytes, 0, length);
+            PrintStream out = System.out;
+            out.write(bytes, 0, length);
+            if (out.checkError()) {
+                throw new IOException("Could not write to standard output");
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /**
+     * Queues each event as the {@link ConsoleEvents} call that prints it.
+     */
+    private final class QueuedEvents implements GameEvents {
+        @Override
+        public void roundStarted(int round) {
+            flush();
+            queue(sink -> sink.roundStarted(round));
+        }
+
+        @Override
+        public void rolled(Player player, int dice1, int dice2) {
+            flush();
+            queue(sink -> sink.rolled(player, dice1, dice2));
+        }
+
+        @Override
+        public void salaryCollected(Player player, int amount, boolean landedOnGo) {
+            queue(sink -> sink.salaryCollected(player, amount, landedOnGo));
+        }
+
+        @Override
+        public void propertyBought(Player player, PropertySquare property) {
+            queue(sink -> sink.propertyBought(player, property));
+        }
+
+        @Override
+        public void propertyDeclined(Player player, PropertySquare property) {
+            queue(sink -> sink.propertyDeclined(player, property));
+        }
+
+        @Override
+        public void cannotAfford(Player player, PropertySquare property) {
+            queue(sink -> sink.cannotAfford(player, property));
+        }
+
+        @Override
+        public void rentPaid(Player player, Player owner, int rent) {
+            queue(sink -> sink.rentPaid(player, owner, rent));
+        }
+
+        @Override
+        public void ownPropertyVisited(Player player, PropertySquare property) {
+            queue(sink -> sink.ownPropertyVisited(player, property));
+        }
+
+        @Override
+        public void houseBuilt(Player player, PropertySquare property, int houses) {
+            queue(sink -> sink.houseBuilt(player, property, houses));
+        }
+
+        @Override
+        public void chance(Player player, int amount) {
+            queue(sink -> sink.chance(player, amount));
+        }
+
+        @Override
+        public void incomeTaxLanded(Player player) {
+            queue(sink -> sink.incomeTaxLanded(player));
+        }
+
+        @Override
+        public void taxPaid(Player player, int tax) {
+            queue(sink -> sink.taxPaid(player, tax));
+        }
+
+        @Override
+        public void justVisiting(Player player) {
+            queue(sink -> sink.justVisiting(player));
+        }
+
+        @Override
+        public void sentToJail(Player player) {
+            queue(sink -> sink.sentToJail(player));
+        }
+
+        @Override
+        public void freeParking(Player player) {
+            queue(sink -> sink.freeParking(player));
+        }
+
+        @Override
+        public void jailTurn(Player player) {
+            flush();
+            queue(sink -> sink.jailTurn(player));
+        }
+
+        @Override
+        public void jailRolled(Player player, int dice1, int dice2) {
+            queue(sink -> sink.jailRolled(player, dice1, dice2));
+        }
+
+        @Override
+        public void leftJail(Player player, boolean doubles) {
+            queue(sink -> sink.leftJail(player, doubles));
+        }
+
+        @Override
+        public void stayedInJail(Player player) {
+            queue(sink -> sink.stayedInJail(player));
+        }
+
+        @Override
+        public void jailFinePaid(Player player) {
+            queue(sink -> sink.jailFinePaid(player));
+        }
+
+        @Override
+        public void bankrupt(Player player) {
+            queue(sink -> sink.bankrupt(player));
+        }
+
+        @Override
+        public void playerRetired(Player player) {
+            queue(sink -> sink.playerRetired(player));
+        }
+
+        @Override
+        public void gameOver(List<Player> winners, int money) {
+            List<Player> copy = new ArrayList<>(winners);
+            queue(sink -> sink.gameOver(copy, money));
+            flush();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package mono;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Kinds of event written to an {@link EventRing}. {@code WINNER} events, one per
+ * winner, come just before {@code GAME_OVER}.
+ */
+enum EventType {
+    ROUND_STARTED, ROLLED, SALARY, BOUGHT, DECLINED, CANNOT_AFFORD, RENT_PAID, OWN_PROPERTY,
+    CHANCE, INCOME_TAX_LANDED, TAX_PAID, JUST_VISITING, SENT_TO_JAIL, FREE_PARKING,
+    JAIL_TURN, JAIL_ROLLED, LEFT_JAIL, STAYED_IN_JAIL, JAIL_FINE_PAID, BANKRUPT, RETIRED,
+    WINNER, GAME_OVER, HOUSE_BUILT;
+
+    private static final EventType[] VALUES = values();
+
+    static EventType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
+
+/**
+ * Reads events drained from an {@link EventRing} or an event log file.
+ */
+interface EventConsumer {
+    void accept(long event);
+
+    default void flush() {}
+}
+
+/**
+ * Records game events as packed longs in a preallocated ring and hands them to
+ * consumers in batches, when the ring fills up, when a game ends or on {@link #flush}.
+ * <p>
+ * Each event is one long: 6 bits of {@link EventType}, 15 bits of seat, a 15 bit
+ * argument {@code a} and a signed 28 bit argument {@code b}:
+ * <pre>
+ *   ROUND_STARTED      b = round
+ *   ROLLED, JAIL_ROLLED a = first die, b = second die
+ *   SALARY             a = 1 if landed on Go, b = amount
+ *   BOUGHT, DECLINED, CANNOT_AFFORD, OWN_PROPERTY  a = position
+ *   RENT_PAID          a = owner's seat, b = rent
+ *   CHANCE             b = amount won, negative if lost
+ *   TAX_PAID           b = tax
+ *   LEFT_JAIL          a = 1 if by doubles
+ *   GAME_OVER          a = number of winners, b = winning money
+ *   HOUSE_BUILT        a = position, b = houses now there
+ * </pre>
+ * Recording allocates nothing. A ring is used by one thread; it is meant for headless
+ * and batch games, while interactive games print through a {@link ConsoleRenderer}.
+ */
+final class EventRing implements GameEvents {
+    private final long[] ring;
+    private final int mask;
+    private final List<EventConsumer> consumers = new ArrayList<>();
+    private int size;
+
+    public EventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.ring = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void addConsumer(EventConsumer consumer) {
+        consumers.add(consumer);
+    }
+
+    static long encode(EventType type, int seat, int a, int b) {
+        return (long) type.ordinal() << 58 | (long) seat << 43 | (long) a << 28 | (b & 0xFFFFFFFL);
+    }
+
+    static EventType type(long event) {
+        return EventType.of((int) (event >>> 58));
+    }
+
+    static int seat(long event) {
+        return (int) (event >>> 43) & 0x7FFF;
+    }
+
+    static int a(long event) {
+        return (int) (event >>> 28) & 0x7FFF;
+    }
+
+    static int b(long event) {
+        return (int) (event << 36 >> 36);
+    }
+
+    private void record(EventType type, int seat, int a, int b) {
+        if (size == ring.length) {
+            flush();
+        }
+        ring[size++ & mask] = encode(type, seat, a, b);
+    }
+
+    /**
+     * Hands every recorded event to the consumers, in order, and empties the ring.
+     */
+    public void flush() {
+        for (EventConsumer consumer : consumers) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ring[i & mask]);
+            }
+            consumer.flush();
+        }
+        size = 0;
+    }
+
+    @Override
+    public void roundStarted(int round) {
+        record(EventType.ROUND_STARTED, 0, 0, round);
+    }
+
+    @Override
+    public void rolled(Player player, int dice1, int dice2) {
+        record(EventType.ROLLED, player.getSeat(), dice1, dice2);
+    }
+
+    @Override
+    public void salaryCollected(Player player, int amount, boolean landedOnGo) {
+        record(EventType.SALARY, player.getSeat(), landedOnGo ? 1 : 0, amount);
+    }
+
+    @Override
+    public void propertyBought(Player player, PropertySquare property) {
+        record(EventType.BOUGHT, player.getSeat(), property.getPosition(), 0);
+    }
+
+    @Override
+    public void propertyDeclined(Player player, PropertySquare property) {
+        record(EventType.DECLINED, player.getSeat(), property.getPosition(), 0);
+    }
+
+    @Override
+    public void cannotAfford(Player player, PropertySquare property) {
+        record(EventType.CANNOT_AFFORD, player.getSeat(), property.getPosition(), 0);
+    }
+
+    @Override
+    public void rentPaid(Player player, Player owner, int rent) {
+        record(EventType.RENT_PAID, player.getSeat(), owner.getSeat(), rent);
+    }
+
+    @Override
+    public void ownPropertyVisited(Player player, PropertySquare property) {
+        record(EventType.OWN_PROPERTY, player.getSeat(), property.getPosition(), 0);
+    }
+
+    @Override
+    public void houseBuilt(Player player, PropertySquare property, int houses) {
+        record(EventType.HOUSE_BUILT, player.getSeat(), property.getPosition(), houses);
+    }
+
+    @Override
+    public void chance(Player player, int amount) {
+        record(EventType.CHANCE, player.getSeat(), 0, amount);
+    }
+
+    @Override
+    public void incomeTaxLanded(Player player) {
+        record(EventType.INCOME_TAX_LANDED, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void taxPaid(Player player, int tax) {
+        record(EventType.TAX_PAID, player.getSeat(), 0, tax);
+    }
+
+    @Override
+    public void justVisiting(Player player) {
+        record(EventType.JUST_VISITING, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void sentToJail(Player player) {
+        record(EventType.SENT_TO_JAIL, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void freeParking(Player player) {
+        record(EventType.FREE_PARKING, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void jailTurn(Player player) {
+        record(EventType.JAIL_TURN, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void jailRolled(Player player, int dice1, int dice2) {
+        record(EventType.JAIL_ROLLED, player.getSeat(), dice1, dice2);
+    }
+
+    @Override
+    public void leftJail(Player player, boolean doubles) {
+        record(EventType.LEFT_JAIL, player.getSeat(), doubles ? 1 : 0, 0);
+    }
+
+    @Override
+    public void stayedInJail(Player player) {
+        record(EventType.STAYED_IN_JAIL, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void jailFinePaid(Player player) {
+        record(EventType.JAIL_FINE_PAID, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void bankrupt(Player player) {
+        record(EventType.BANKRUPT, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void playerRetired(Player player) {
+        record(EventType.RETIRED, player.getSeat(), 0, 0);
+    }
+
+    @Override
+    public void gameOver(List<Player> winners, int money) {
+        for (Player winner : winners) {
+            record(EventType.WINNER, winner.getSeat(), 0, 0);
+        }
+        record(EventType.GAME_OVER, 0, winners.size(), money);
+        flush();
+    }
+}
+
+/**
+ * Turns packed events back into {@link GameEvents} calls on another sink, for example
+ * a {@link ConsoleEvents} to print a recorded game with the interactive wording.
+ */
+class EventDispatcher implements EventConsumer {
+    private final Game game;
+    private final GameEvents target;
+    private final List<Player> winners = new ArrayList<>();
+
+    public EventDispatcher(Game game, GameEvents target) {
+        this.game = game;
+        this.target = target;
+    }
+
+    @Override
+    public void accept(long event) {
+        Player player = game.getSeat(EventRing.seat(event));
+        int a = EventRing.a(event);
+        int b = EventRing.b(event);
+        switch (EventRing.type(event)) {
+            case ROUND_STARTED: target.roundStarted(b); break;
+            case ROLLED: target.rolled(player, a, b); break;
+            case SALARY: target.salaryCollected(player, b, a == 1); break;
+            case BOUGHT: target.propertyBought(player, property(a)); break;
+            case DECLINED: target.propertyDeclined(player, property(a)); break;
+            case CANNOT_AFFORD: target.cannotAfford(player, property(a)); break;
+            case RENT_PAID: target.rentPaid(player, game.getSeat(a), b); break;
+            case OWN_PROPERTY: target.ownPropertyVisited(player, property(a)); break;
+            case HOUSE_BUILT: target.houseBuilt(player, property(a), b); break;
+            case CHANCE: target.chance(player, b); break;
+            case INCOME_TAX_LANDED: target.incomeTaxLanded(player); break;
+            case TAX_PAID: target.taxPaid(player, b); break;
+            case JUST_VISITING: target.justVisiting(player); break;
+            case SENT_TO_JAIL: target.sentToJail(player); break;
+            case FREE_PARKING: target.freeParking(player); break;
+            case JAIL_TURN: target.jailTurn(player); break;
+            case JAIL_ROLLED: target.jailRolled(player, a, b); break;
+            case LEFT_JAIL: target.leftJail(player, a == 1); break;
+            case STAYED_IN_JAIL: target.stayedInJail(player); break;
+            case JAIL_FINE_PAID: target.jailFinePaid(player); break;
+            case BANKRUPT: target.bankrupt(player); break;
+            case RETIRED: target.playerRetired(player); break;
+            case WINNER: winners.add(player); break;
+            case GAME_OVER:
+                target.gameOver(new ArrayList<>(winners), b);
+                winners.clear();
+                break;
+        }
+    }
+
+    private PropertySquare property(int position) {
+        return (PropertySquare) game.getSquare(position);
+    }
+}
+
+/**
+ * Counts events and sums their amounts by type, across any number of games.
+ */
+class EventAggregator implements EventConsumer {
+    private final long[] counts = new long[EventType.values().length];
+    private final long[] amounts = new long[EventType.values().length];
+
+    @Override
+    public void accept(long event) {
+        int type = (int) (event >>> 58);
+        counts[type]++;
+        amounts[type] += EventRing.b(event);
+    }
+
+    public long getCount(EventType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Returns the sum of the {@code b} argument: total rent for RENT_PAID, total tax
+     * for TAX_PAID, net chance winnings for CHANCE and so on.
+     */
+    public long getAmount(EventType type) {
+        return amounts[type.ordinal()];
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (EventType type : EventType.values()) {
+            summary.append(String.format("%-18s %12d %14d%n", type, counts[type.ordinal()], amounts[type.ordinal()]));
+        }
+        return summary.toString();
+    }
+}
+
+/**
+ * Appends events to a file as raw 8-byte longs through a direct buffer, and reads such
+ * files back.
+ */
+class BinaryEventLog implements EventConsumer, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public BinaryEventLog(String fileName) throws IOException {
+        this.channel = FileChannel.open(Paths.get(fileName), WRITE, CREATE, APPEND);
+    }
+
+    @Override
+    public void accept(long event) {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putLong(event);
+    }
+
+    @Override
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Feeds every event in {@code fileName} to {@code consumer}, in order.
+     */
+    public static void read(String fileName, EventConsumer consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(Paths.get(fileName), READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (in.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= Long.BYTES) {
+                    consumer.accept(buffer.getLong());
+                }
+                buffer.compact();
+                if (buffer.position() > 0 && in.position() == in.size()) {
+                    throw new IOException("Event log ends with a partial event");
+                }
+            }
+            consumer.flush();
+        }
+    }
+
+    /**
+     * Prints event counts and totals for a log file.
+     */
+    public static void main(String[] args) throws IOException {
+        EventAggregator aggregator = new EventAggregator();
+        read(args[0], aggregator);
+        System.out.print(aggregator.summary());
+    }
+}
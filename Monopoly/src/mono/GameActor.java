@@ -0,0 +1,179 @@
+package mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives one table's {@link GameSession} from any number of threads. Commands go into
+ * a lock-free {@link MpscQueue} and are applied one at a time by whichever executor
+ * thread is draining the table, so the game itself is only ever touched by one thread
+ * at a time and needs no locks.
+ * <p>
+ * After every command the actor publishes an immutable {@link Status} through a
+ * volatile field. Readers call {@link #getStatus()} from any thread without waiting
+ * for the game loop, and always see the state between two whole commands.
+ */
+class GameActor {
+    enum Kind { ROLL, BUY, DECLINE, PAY_FINE, STAY_IN_JAIL, SAVE, STATUS }
+
+    /**
+     * A request to the table. {@code reply} completes with the text the console would
+     * print in answer.
+     */
+    static final class Command {
+        final Kind kind;
+        final String fileName;
+        final CompletableFuture<String> reply = new CompletableFuture<>();
+
+        Command(Kind kind, String fileName) {
+            this.kind = kind;
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * What the table looked like after a command, as the console shows it.
+     */
+    static final class Status {
+        private final long version;
+        private final String gameStatus;
+        private final String playersStatus;
+        private final boolean waitingForDecision;
+        private final boolean gameOver;
+
+        Status(long version, StatusView view, boolean waitingForDecision, boolean gameOver) {
+            this.version = version;
+            this.gameStatus = view.getGameStatus();
+            this.playersStatus = view.getAllPlayersStatus();
+            this.waitingForDecision = waitingForDecision;
+            this.gameOver = gameOver;
+        }
+
+        /**
+         * Counts the commands applied before this status was published.
+         */
+        public long getVersion() { return version; }
+
+        public String getGameStatus() { return gameStatus; }
+
+        public String getAllPlayersStatus() { return playersStatus; }
+
+        public boolean isWaitingForDecision() { return waitingForDecision; }
+
+        public boolean isGameOver() { return gameOver; }
+    }
+
+    private final GameSession session = new GameSession();
+    private final MpscQueue<Command> commands = new MpscQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+    private final Runnable drain = this::drain;
+    private long applied;
+    private volatile Status status;
+
+    public GameActor(List<String> playerNames, Executor executor) {
+        this.executor = executor;
+        String reply = session.handle(String.join(",", playerNames));
+        if (session.getGame() == null) {
+            throw new IllegalArgumentException(reply.trim());
+        }
+        this.status = new Status(0, session.statusView(), false, false);
+    }
+
+    public CompletableFuture<String> roll() {
+        return submit(Kind.ROLL, null);
+    }
+
+    public CompletableFuture<String> buy(boolean buy) {
+        return submit(buy ? Kind.BUY : Kind.DECLINE, null);
+    }
+
+    public CompletableFuture<String> payJailFine(boolean pay) {
+        return submit(pay ? Kind.PAY_FINE : Kind.STAY_IN_JAIL, null);
+    }
+
+    public CompletableFuture<String> save(String fileName) {
+        return submit(Kind.SAVE, fileName);
+    }
+
+    /**
+     * Queues a status query behind the commands already sent, for callers that need to
+     * see the effect of their own commands; {@link #getStatus()} does not wait.
+     */
+    public CompletableFuture<String> queryStatus() {
+        return submit(Kind.STATUS, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public CompletableFuture<String> submit(Kind kind, String fileName) {
+        Command command = new Command(kind, fileName);
+        commands.offer(command);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(drain);
+        }
+        return command.reply;
+    }
+
+    private void drain() {
+        while (true) {
+            Command command;
+            while ((command = commands.poll()) != null) {
+                apply(command);
+            }
+            scheduled.set(false);
+            // A producer may have queued after the last poll but before the flag cleared.
+            if (commands.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void apply(Command command) {
+        String reply;
+        try {
+            reply = execute(command);
+        } catch (RuntimeException e) {
+            command.reply.completeExceptionally(e);
+            return;
+        }
+        status = new Status(++applied, session.statusView(), session.isWaitingForDecision(),
+                session.isClosed());
+        command.reply.complete(reply);
+    }
+
+    private String execute(Command command) {
+        if (session.isClosed()) {
+            return "The game is over.\n";
+        }
+        switch (command.kind) {
+            case ROLL:
+                if (session.isWaitingForDecision()) {
+                    return "Waiting for an answer to the last question.\n";
+                }
+                return session.handle("1");
+            case BUY:
+            case DECLINE:
+                if (!session.isWaitingToBuy()) {
+                    return "There is no property to buy.\n";
+                }
+                return session.handle(command.kind == Kind.BUY ? "y" : "n");
+            case PAY_FINE:
+            case STAY_IN_JAIL:
+                if (!session.isWaitingToPayFine()) {
+                    return "There is no jail fine to pay.\n";
+                }
+                return session.handle(command.kind == Kind.PAY_FINE ? "y" : "n");
+            case SAVE:
+                return session.save(command.fileName);
+            case STATUS:
+                return session.statusView().getGameStatus() + "\n" + session.statusView().getAllPlayersStatus();
+            default:
+                throw new IllegalArgumentException("Unknown command " + command.kind);
+        }
+    }
+}
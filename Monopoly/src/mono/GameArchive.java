@@ -0,0 +1,405 @@
+package mono;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A read-only, memory-mapped file of finished games, one fixed-width record each, for
+ * analytics over millions of games without deserializing any of them.
+ * <p>
+ * The file starts with a 64-byte header:
+ * <pre>
+ *   int    magic "MNAR"
+ *   short  version
+ *   short  players per record
+ *   int    board size
+ *   int    record width in bytes
+ *   long   master seed of the run
+ *   long   record count
+ *   long   index offset
+ *   int    index entry count
+ * </pre>
+ * Records follow, each {@code width} bytes:
+ * <pre>
+ *   long   seed: the game's GameRandom state at the start
+ *   short  rounds played
+ *   byte   player count
+ *   byte   winner's seat, or -1 for a tie or no survivors
+ *   int    final money of each seat, for {@code players} seats
+ *   byte   owner's seat + 1 of each square at the end, or 0, for {@code board size} squares
+ *   ...    padding to a multiple of 8
+ * </pre>
+ * The index at the end has one entry per appended batch: long index of its first game
+ * in the run, int game count and long number of its first record. Batches come from
+ * parallel shards and may be stored in any order; the index finds a game by its number.
+ * <p>
+ * Version 1 archives, which stored the board size and record width as shorts, are
+ * still read.
+ */
+final class GameArchive implements Closeable {
+    static final int MAGIC = 0x4D4E4152;
+    static final short VERSION = 2;
+    static final int HEADER = 64;
+    private static final int INDEX_ENTRY = 8 + 4 + 8;
+
+    private final FileChannel channel;
+    private final int players;
+    private final int boardSize;
+    private final int width;
+    private final long masterSeed;
+    private final long size;
+    private final int recordsPerChunk;
+    private final MappedByteBuffer[] chunks;
+    private final long[] batchFirstGame;
+    private final int[] batchCount;
+    private final long[] batchFirstRecord;
+
+    private GameArchive(String fileName) throws IOException {
+        this.channel = FileChannel.open(Paths.get(fileName), READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        }
+        header.flip();
+        if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+            throw new IOException("Not a game archive");
+        }
+        short version = header.getShort();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported archive version " + version);
+        }
+        this.players = header.getShort();
+        this.boardSize = version == 1 ? header.getShort() : header.getInt();
+        this.width = version == 1 ? header.getShort() : header.getInt();
+        if (players < 1 || boardSize < 1 || width < recordWidth(players, boardSize)) {
+            throw new IOException("Corrupt archive header");
+        }
+        this.masterSeed = header.getLong();
+        this.size = header.getLong();
+        long indexOffset = header.getLong();
+        int indexCount = header.getInt();
+        if (indexOffset == 0) {
+            throw new IOException("Archive was not closed properly");
+        }
+
+        // A single mapping is limited to 2 GB, so large archives are mapped in chunks
+        // of whole records.
+        this.recordsPerChunk = Integer.MAX_VALUE / width;
+        int chunkCount = (int) ((size + recordsPerChunk - 1) / recordsPerChunk);
+        this.chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long first = (long) i * recordsPerChunk;
+            long records = Math.min(recordsPerChunk, size - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * width, records * width);
+        }
+
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) indexCount * INDEX_ENTRY);
+        Integer[] order = new Integer[indexCount];
+        long[] firstGames = new long[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            order[i] = i;
+            firstGames[i] = index.getLong(i * INDEX_ENTRY);
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(firstGames[a], firstGames[b]));
+        this.batchFirstGame = new long[indexCount];
+        this.batchCount = new int[indexCount];
+        this.batchFirstRecord = new long[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            int entry = order[i] * INDEX_ENTRY;
+            batchFirstGame[i] = index.getLong(entry);
+            batchCount[i] = index.getInt(entry + 8);
+            batchFirstRecord[i] = index.getLong(entry + 12);
+        }
+    }
+
+    public static GameArchive open(String fileName) throws IOException {
+        return new GameArchive(fileName);
+    }
+
+    public static Writer create(String fileName, long masterSeed, int players, int boardSize) throws IOException {
+        return new Writer(fileName, masterSeed, players, boardSize);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    /**
+     * Returns the record of game {@code gameIndex} of the run, or -1 if it is not in
+     * the archive.
+     */
+    public long find(long gameIndex) {
+        int batch = Arrays.binarySearch(batchFirstGame, gameIndex);
+        if (batch < 0) {
+            batch = -batch - 2;
+        }
+        if (batch < 0 || gameIndex >= batchFirstGame[batch] + batchCount[batch]) {
+            return -1;
+        }
+        return batchFirstRecord[batch] + (gameIndex - batchFirstGame[batch]);
+    }
+
+    public long getSeed(long record) {
+        return chunk(record).getLong(offset(record));
+    }
+
+    public int getRounds(long record) {
+        return chunk(record).getShort(offset(record) + 8);
+    }
+
+    public int getPlayerCount(long record) {
+        return chunk(record).get(offset(record) + 10);
+    }
+
+    /**
+     * Returns the winner's seat, or -1 if the game ended in a tie or with no survivors.
+     */
+    public int getWinner(long record) {
+        return chunk(record).get(offset(record) + 11);
+    }
+
+    public int getMoney(long record, int seat) {
+        return chunk(record).getInt(offset(record) + 12 + 4 * seat);
+    }
+
+    /**
+     * Returns the seat owning {@code position} at the end of the game, or -1.
+     */
+    public int getOwner(long record, int position) {
+        return (chunk(record).get(offset(record) + 12 + 4 * players + position - 1) & 0xFF) - 1;
+    }
+
+    /**
+     * Returns, for each position, how often whoever owned it at the end won the game;
+     * NaN where the square was never owned. Ties count as losses.
+     */
+    public double[] ownerWinRates() {
+        long[] owned = new long[boardSize + 1];
+        long[] won = new long[boardSize + 1];
+        int ownersOffset = 12 + 4 * players;
+        for (int c = 0; c < chunks.length; c++) {
+            MappedByteBuffer chunk = chunks[c];
+            int records = (int) Math.min(recordsPerChunk, size - (long) c * recordsPerChunk);
+            for (int r = 0, base = 0; r < records; r++, base += width) {
+                int winner = chunk.get(base + 11) + 1;
+                for (int position = 1; position <= boardSize; position++) {
+                    int owner = chunk.get(base + ownersOffset + position - 1) & 0xFF;
+                    if (owner != 0) {
+                        owned[position]++;
+                        if (owner == winner) {
+                            won[position]++;
+                        }
+                    }
+                }
+            }
+        }
+        double[] rates = new double[boardSize + 1];
+        for (int position = 1; position <= boardSize; position++) {
+            rates[position] = owned[position] == 0 ? Double.NaN : (double) won[position] / owned[position];
+        }
+        return rates;
+    }
+
+    public double winRateOfOwner(int position) {
+        return ownerWinRates()[position];
+    }
+
+    private MappedByteBuffer chunk(long record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+        }
+        return chunks[(int) (record / recordsPerChunk)];
+    }
+
+    private int offset(long record) {
+        return (int) (record % recordsPerChunk) * width;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static int recordWidth(int players, int boardSize) {
+        return (12 + 4 * players + boardSize + 7) & ~7;
+    }
+
+    /**
+     * Encodes consecutive games of a run into records, for one {@link Writer#append}.
+     * Each shard of a parallel run fills its own batch.
+     */
+    static final class Batch {
+        private final int players;
+        private final int boardSize;
+        private final int width;
+        private final long firstGame;
+        private ByteBuffer records;
+        private int count;
+
+        Batch(Writer writer, long firstGame, int expectedGames) {
+            this.players = writer.players;
+            this.boardSize = writer.boardSize;
+            this.width = writer.width;
+            this.firstGame = firstGame;
+            this.records = ByteBuffer.allocate(width * Math.max(1, expectedGames));
+        }
+
+        /**
+         * Adds the next game; {@code seed} is its GameRandom state before the first roll.
+         */
+        void add(long seed, Game game) {
+            if (game.getBoardSize() != boardSize || game.getState().seats() > players) {
+                throw new IllegalArgumentException("Game does not fit this archive's layout");
+            }
+            if (records.remaining() < width) {
+                records = ByteBuffer.allocate(records.capacity() * 2).put(records.flip());
+            }
+            int base = records.position();
+            GameState state = game.getState();
+            List<Player> winners = game.getWinners();
+            records.putLong(seed);
+            records.putShort((short) game.getCurrentRound());
+            records.put((byte) state.seats());
+            records.put((byte) (winners.size() == 1 ? winners.get(0).getSeat() : -1));
+            for (int seat = 0; seat < players; seat++) {
+                records.putInt(seat < state.seats() ? state.money[seat] : 0);
+            }
+            for (int position = 1; position <= boardSize; position++) {
+                records.put((byte) (state.ownerBySquare[position] + 1));
+            }
+            records.position(base + width);
+            count++;
+        }
+    }
+
+    /**
+     * Appends batches of records and writes the header and index on {@link #close()}.
+     * Safe to share between the threads of a parallel run.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final long masterSeed;
+        private final int players;
+        private final int boardSize;
+        private final int width;
+        private final List<long[]> index = new ArrayList<>();
+        private long records;
+
+        private Writer(String fileName, long masterSeed, int players, int boardSize) throws IOException {
+            if (players < 1 || players > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("An archive holds 1-" + Byte.MAX_VALUE + " players per game");
+            }
+            if (boardSize < 1 || boardSize > GameBoard.MAX_SIZE) {
+                throw new IllegalArgumentException("Board size must be between 1 and " + GameBoard.MAX_SIZE);
+            }
+            this.channel = FileChannel.open(Paths.get(fileName), WRITE, CREATE, TRUNCATE_EXISTING);
+            this.masterSeed = masterSeed;
+            this.players = players;
+            this.boardSize = boardSize;
+            this.width = recordWidth(players, boardSize);
+            channel.position(HEADER);
+        }
+
+        Batch newBatch(long firstGame, int expectedGames) {
+            return new Batch(this, firstGame, expectedGames);
+        }
+
+        synchronized void append(Batch batch) throws IOException {
+            ByteBuffer data = batch.records.duplicate().flip();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            index.add(new long[] {batch.firstGame, batch.count, records});
+            records += batch.count;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            long indexOffset = HEADER + records * width;
+            ByteBuffer data = ByteBuffer.allocate(index.size() * INDEX_ENTRY);
+            for (long[] entry : index) {
+                data.putLong(entry[0]).putInt((int) entry[1]).putLong(entry[2]);
+            }
+            data.flip();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) players).putInt(boardSize)
+                    .putInt(width).putLong(masterSeed).putLong(records).putLong(indexOffset)
+                    .putInt(index.size());
+            header.position(0).limit(HEADER);
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes an archive of simulated games, or prints how often the owner of each
+     * property won:
+     * <pre>
+     *   java mono.GameArchive write games.arc [games] [players] [seed]
+     *   java mono.GameArchive query games.arc
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        String fileName = args[1];
+        if (args[0].equals("write")) {
+            long games = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+            int numPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 3211L;
+            List<String> names = new ArrayList<>();
+            for (int i = 1; i <= numPlayers; i++) {
+                names.add("Player " + i);
+            }
+            long start = System.nanoTime();
+            try (Writer writer = create(fileName, seed, numPlayers, GameBoard.DEFAULT_SIZE)) {
+                new Tournament(new Simulation(names, new AlwaysBuyStrategy()), seed).archiveTo(writer).run(games);
+            }
+            System.out.printf("Archived %d games in %d ms%n", games, (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        try (GameArchive archive = open(fileName)) {
+            long start = System.nanoTime();
+            double[] rates = archive.ownerWinRates();
+            long elapsed = System.nanoTime() - start;
+            GameBoard board = GameBoard.standard();
+            System.out.printf("%d games scanned in %d ms%n", archive.size(), elapsed / 1_000_000);
+            for (int position = 1; position <= archive.getBoardSize(); position++) {
+                if (!Double.isNaN(rates[position])) {
+                    System.out.printf("%-12s owner wins %.1f%%%n",
+                            board.getSquare(position).getName(), 100 * rates[position]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package mono;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Receives everything that happens during a game. Every method does nothing by default,
+ * so a headless game using {@link #NONE} spends no time on output.
+ */
+interface GameEvents {
+    GameEvents NONE = new GameEvents() {};
+
+    default void roundStarted(int round) {}
+    default void rolled(Player player, int dice1, int dice2) {}
+    default void salaryCollected(Player player, int amount, boolean landedOnGo) {}
+    default void propertyBought(Player player, PropertySquare property) {}
+    default void propertyDeclined(Player player, PropertySquare property) {}
+    default void cannotAfford(Player player, PropertySquare property) {}
+    default void rentPaid(Player player, Player owner, int rent) {}
+    default void ownPropertyVisited(Player player, PropertySquare property) {}
+    default void houseBuilt(Player player, PropertySquare property, int houses) {}
+    default void chance(Player player, int amount) {}
+    default void incomeTaxLanded(Player player) {}
+    default void taxPaid(Player player, int tax) {}
+    default void justVisiting(Player player) {}
+    default void sentToJail(Player player) {}
+    default void freeParking(Player player) {}
+    default void jailTurn(Player player) {}
+    default void jailRolled(Player player, int dice1, int dice2) {}
+    default void leftJail(Player player, boolean doubles) {}
+    default void stayedInJail(Player player) {}
+    default void jailFinePaid(Player player) {}
+    default void bankrupt(Player player) {}
+    default void playerRetired(Player player) {}
+    default void gameOver(List<Player> winners, int money) {}
+}
+
+/**
+ * Prints game events in the wording used by the interactive game.
+ */
+class ConsoleEvents implements GameEvents {
+    private final PrintStream out;
+
+    public ConsoleEvents() {
+        this(System.out);
+    }
+
+    public ConsoleEvents(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void roundStarted(int round) {
+        out.printf("%nRound %d%n", round);
+    }
+
+    @Override
+    public void rolled(Player player, int dice1, int dice2) {
+        out.printf("%s rolled %d + %d = %d%n",
+                player.getName(), dice1, dice2, dice1 + dice2);
+    }
+
+    @Override
+    public void salaryCollected(Player player, int amount, boolean landedOnGo) {
+        out.printf(landedOnGo ? "%s receives $%d salary for landing on GO%n"
+                        : "%s receives $%d salary for passing GO%n",
+                player.getName(), amount);
+    }
+
+    @Override
+    public void propertyBought(Player player, PropertySquare property) {
+        out.printf("%s bought %s for $%d%n",
+                player.getName(), property.getName(), property.getPrice());
+    }
+
+    @Override
+    public void propertyDeclined(Player player, PropertySquare property) {
+        out.printf("%s chose not to buy %s%n",
+                player.getName(), property.getName());
+    }
+
+    @Override
+    public void cannotAfford(Player player, PropertySquare property) {
+        out.printf("%s cannot afford to buy %s%n",
+                player.getName(), property.getName());
+    }
+
+    @Override
+    public void rentPaid(Player player, Player owner, int rent) {
+        out.printf("%s pays $%d rent to %s%n",
+                player.getName(), rent, owner.getName());
+    }
+
+    @Override
+    public void ownPropertyVisited(Player player, PropertySquare property) {
+        out.printf("%s owns %s - no rent to pay%n",
+                player.getName(), property.getName());
+    }
+
+    @Override
+    public void houseBuilt(Player player, PropertySquare property, int houses) {
+        if (houses == BoardLayout.HOTEL) {
+            out.printf("%s built a hotel on %s%n", player.getName(), property.getName());
+        } else {
+            out.printf("%s built a house on %s (%d now)%n", player.getName(), property.getName(), houses);
+        }
+    }
+
+    @Override
+    public void chance(Player player, int amount) {
+        if (amount >= 0) {
+            out.printf("%s gains $%d from Chance%n", player.getName(), amount);
+        } else {
+            out.printf("%s loses $%d from Chance%n", player.getName(), -amount);
+        }
+    }
+
+    @Override
+    public void incomeTaxLanded(Player player) {
+        out.printf("%s landed on Income Tax%n", player.getName());
+    }
+
+    @Override
+    public void taxPaid(Player player, int tax) {
+        out.printf("%s pays $%d in tax%n", player.getName(), tax);
+    }
+
+    @Override
+    public void justVisiting(Player player) {
+        out.printf("%s is just visiting jail%n", player.getName());
+    }
+
+    @Override
+    public void sentToJail(Player player) {
+        out.printf("%s goes to jail%n", player.getName());
+    }
+
+    @Override
+    public void freeParking(Player player) {
+        out.printf("%s lands on Free Parking. Nothing happens.%n", player.getName());
+    }
+
+    @Override
+    public void jailTurn(Player player) {
+        out.printf("%s is in jail.%n", player.getName());
+    }
+
+    @Override
+    public void jailRolled(Player player, int dice1, int dice2) {
+        out.printf("%s rolled %d + %d%n", player.getName(), dice1, dice2);
+    }
+
+    @Override
+    public void leftJail(Player player, boolean doubles) {
+        if (doubles) {
+            out.printf("%s got out of jail with doubles!%n", player.getName());
+        } else {
+            out.printf("%s got out of jail after three turns and paid $150%n", player.getName());
+        }
+    }
+
+    @Override
+    public void stayedInJail(Player player) {
+        out.printf("%s stays in jail%n", player.getName());
+    }
+
+    @Override
+    public void jailFinePaid(Player player) {
+        out.printf("%s pays $150 to get out of jail%n", player.getName());
+    }
+
+    @Override
+    public void bankrupt(Player player) {
+        out.printf("%s has gone bankrupt!%n", player.getName());
+    }
+
+    @Override
+    public void playerRetired(Player player) {
+        out.printf("%s retires from the game%n", player.getName());
+    }
+
+    @Override
+    public void gameOver(List<Player> winners, int money) {
+        if (winners.isEmpty()) {
+            out.println("Game over! No winners - everyone went bankrupt!");
+        } else if (winners.size() == 1) {
+            out.printf("Game over! %s wins with $%d%n",
+                    winners.get(0).getName(), money);
+        } else {
+            out.printf("Game over! It's a tie between: %s with $%d each%n",
+                    winners.stream().map(Player::getName).reduce((a, b) -> a + " and " + b).get(),
+                    money);
+        }
+    }
+}
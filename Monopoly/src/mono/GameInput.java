@@ -0,0 +1,159 @@
+package mono;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Line-oriented answers to the console prompts. Every prompt, in the menus and in
+ * {@link ConsoleStrategy}, reads through the one {@link #console()} input, so no prompt
+ * buffers ahead of another and piped or scripted input arrives in order.
+ * <p>
+ * The console reads standard input unless {@link #setConsole} replaced it, for example
+ * with a command script from {@link #fromFile} or a {@link Queue} filled by another
+ * thread. Like {@link java.util.Scanner}, reading past the end of the input throws
+ * {@link NoSuchElementException}.
+ */
+abstract class GameInput {
+    private static volatile GameInput console;
+
+    /**
+     * Returns the next line without its line terminator, or null at the end of input.
+     */
+    protected abstract String nextLineOrNull();
+
+    /**
+     * Returns the next line without its line terminator.
+     */
+    public String readLine() {
+        ConsoleRenderer.syncConsole();
+        String line = nextLineOrNull();
+        if (line == null) {
+            throw new NoSuchElementException("No more input");
+        }
+        return line;
+    }
+
+    /**
+     * Returns the first word of the next non-blank line as an integer and drops the rest
+     * of that line, as {@code Scanner.nextInt()} followed by {@code nextLine()} did.
+     *
+     * @throws InputMismatchException if the word is not an integer
+     */
+    public int readInt() {
+        String line;
+        do {
+            line = readLine().trim();
+        } while (line.isEmpty());
+        int end = 0;
+        while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        String word = line.substring(0, end);
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new InputMismatchException("Not a number: " + word);
+        }
+    }
+
+    /**
+     * Returns the input every console prompt reads from.
+     */
+    static GameInput console() {
+        GameInput current = console;
+        if (current == null) {
+            synchronized (GameInput.class) {
+                current = console;
+                if (current == null) {
+                    current = of(System.in);
+                    console = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Makes every console prompt read from {@code input}.
+     */
+    static void setConsole(GameInput input) {
+        console = input;
+    }
+
+    static GameInput of(InputStream in) {
+        return new Reader(new BufferedReader(new InputStreamReader(in, Charset.defaultCharset())));
+    }
+
+    /**
+     * Reads a command script: one answer per line, exactly as it would be typed.
+     */
+    static GameInput fromFile(String fileName) throws IOException {
+        return of(new FileInputStream(fileName));
+    }
+
+    private static final class Reader extends GameInput {
+        private final BufferedReader reader;
+
+        Reader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        protected String nextLineOrNull() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Answers queued in memory. Any thread may {@link #offer} lines without blocking;
+     * the game's thread waits for the next line when the queue is empty, until
+     * {@link #close} marks the end of input.
+     */
+    static final class Queue extends GameInput {
+        private static final String END = new String("");
+
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private volatile boolean closed;
+
+        void offer(String line) {
+            if (closed) {
+                throw new IllegalStateException("Input is closed");
+            }
+            lines.add(line);
+        }
+
+        void close() {
+            closed = true;
+            lines.add(END);
+        }
+
+        @Override
+        protected String nextLineOrNull() {
+            try {
+                String line = lines.take();
+                if (line == END) {
+                    // Leave the marker for any later read.
+                    lines.add(END);
+                    return null;
+                }
+                return line;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,602 @@
+package mono;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Crash-safe storage for many running games in one directory: an append-only journal of
+ * what each turn changed, plus a checkpoint of every game every few turns.
+ * <p>
+ * Each {@link JournaledGame} compares its game with a shadow copy after a turn and
+ * appends only the differences. Records from all games collect in one buffer, and
+ * {@link #commit()} writes and fsyncs them together, so one fsync covers every turn
+ * since the last commit. Call it once per server loop, or let {@link #append} do it
+ * when {@code commitIntervalNanos} has passed.
+ * <p>
+ * Journal segments are named {@code journal-N.wal}. Each record is:
+ * <pre>
+ *   int    table id
+ *   long   sequence number of the table's turn
+ *   int    payload length
+ *   ...    payload, see {@link JournaledGame}
+ *   int    CRC32 of everything above
+ * </pre>
+ * Checkpoints are {@code table-ID.ckpt}, written to a temporary file and renamed into
+ * place: an int table id, the long sequence number they include, then a
+ * {@link GameSnapshot}. A segment is deleted once every game with records in it has a
+ * newer checkpoint. A table id tracked again after {@link JournaledGame#finish()}
+ * continues the sequence of the finished game, so records of the old game left in the
+ * journal are older than the new game's first checkpoint and are never replayed.
+ * <p>
+ * {@link #open} recovers every game from its checkpoint and the records that follow it
+ * one sequence number at a time. A game stops at the first gap in its records, and the
+ * whole scan stops at the first torn or corrupt record, which a crash leaves at the end.
+ */
+final class GameJournal implements Closeable {
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 100;
+    static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+    static final long DEFAULT_COMMIT_INTERVAL_NANOS = 2_000_000;
+    private static final int HEADER = 4 + 8 + 4;
+
+    private final Path directory;
+    private final int checkpointInterval;
+    private final long segmentSize;
+    private final long commitIntervalNanos;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private final CRC32 crc = new CRC32();
+    private final Map<Integer, JournaledGame> tables = new LinkedHashMap<>();
+
+    /**
+     * Sealed segments with the highest sequence number each table wrote to them.
+     */
+    private final Map<Path, Map<Integer, Long>> sealed = new LinkedHashMap<>();
+    private Map<Integer, Long> current = new HashMap<>();
+
+    /**
+     * The last sequence number of finished tables that may still have records in a segment.
+     */
+    private final Map<Integer, Long> finishedSequences = new HashMap<>();
+    private int segmentNumber;
+    private Path segmentPath;
+    private FileChannel segment;
+    private long lastCommit = System.nanoTime();
+
+    private GameJournal(Path directory, int checkpointInterval, long segmentSize, long commitIntervalNanos) {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = commitIntervalNanos;
+    }
+
+    public static GameJournal open(String directory, PlayerStrategy strategy, GameEvents events) throws IOException {
+        return open(directory, GameBoard.standard(), strategy, events, DEFAULT_CHECKPOINT_INTERVAL,
+                DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL_NANOS);
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed. Games found there
+     * are rebuilt on {@code board} with {@code strategy} and {@code events}, checkpointed
+     * afresh and available from {@link #getTables()}; the old segments are then removed.
+     */
+    public static GameJournal open(String directory, GameBoard board, PlayerStrategy strategy, GameEvents events,
+                                   int checkpointInterval, long segmentSize, long commitIntervalNanos)
+            throws IOException {
+        Path path = Paths.get(directory);
+        Files.createDirectories(path);
+        GameJournal journal = new GameJournal(path, checkpointInterval, segmentSize, commitIntervalNanos);
+        List<Path> oldSegments = journal.segments();
+        journal.segmentNumber = oldSegments.isEmpty() ? 0 : number(oldSegments.get(oldSegments.size() - 1));
+        journal.startSegment();
+
+        for (Map.Entry<Integer, Recovered> entry : recover(path, oldSegments, board, strategy, events).entrySet()) {
+            Recovered recovered = entry.getValue();
+            JournaledGame table = new JournaledGame(journal, entry.getKey(), recovered.game, recovered.sequence);
+            journal.tables.put(entry.getKey(), table);
+            table.checkpoint();
+        }
+        for (Path old : oldSegments) {
+            Files.delete(old);
+        }
+        return journal;
+    }
+
+    /**
+     * Starts journaling a new game under {@code tableId}, with a first checkpoint.
+     */
+    public JournaledGame track(int tableId, Game game) throws IOException {
+        if (tables.containsKey(tableId)) {
+            throw new IllegalArgumentException("Table " + tableId + " is already journaled");
+        }
+        Long finished = finishedSequences.remove(tableId);
+        JournaledGame table = new JournaledGame(this, tableId, game, finished == null ? 0 : finished);
+        tables.put(tableId, table);
+        table.checkpoint();
+        return table;
+    }
+
+    public Map<Integer, JournaledGame> getTables() {
+        return Collections.unmodifiableMap(tables);
+    }
+
+    int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Queues one record; it is durable after the next {@link #commit()}.
+     */
+    void append(int tableId, long sequence, ByteBuffer payload) throws IOException {
+        int length = HEADER + payload.remaining() + 4;
+        if (buffer.remaining() < length) {
+            flush();
+        }
+        ByteBuffer target = buffer.remaining() >= length ? buffer : ByteBuffer.allocate(length);
+        int start = target.position();
+        target.putInt(tableId).putLong(sequence).putInt(payload.remaining()).put(payload);
+        ByteBuffer written = target.duplicate();
+        written.position(start).limit(target.position());
+        crc.reset();
+        crc.update(written);
+        target.putInt((int) crc.getValue());
+        if (target != buffer) {
+            target.flip();
+            write(target);
+        }
+        current.merge(tableId, sequence, Math::max);
+
+        if (System.nanoTime() - lastCommit >= commitIntervalNanos) {
+            commit();
+        }
+    }
+
+    /**
+     * Writes every queued record and fsyncs the journal once for all of them.
+     */
+    public void commit() throws IOException {
+        flush();
+        segment.force(false);
+        lastCommit = System.nanoTime();
+        if (segment.size() >= segmentSize) {
+            sealed.put(segmentPath, current);
+            current = new HashMap<>();
+            segment.close();
+            startSegment();
+            deleteObsoleteSegments();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            segment.write(data);
+        }
+    }
+
+    /**
+     * Writes {@code snapshot} as the checkpoint of {@code tableId} at {@code sequence}.
+     */
+    void writeCheckpoint(int tableId, long sequence, byte[] snapshot) throws IOException {
+        Path target = checkpointPath(tableId);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        ByteBuffer data = ByteBuffer.allocate(4 + 8 + snapshot.length);
+        data.putInt(tableId).putLong(sequence).put(snapshot).flip();
+        try (FileChannel channel = FileChannel.open(temporary, WRITE, CREATE, TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        deleteObsoleteSegments();
+    }
+
+    /**
+     * Stops journaling a finished game and removes its checkpoint, so it is not
+     * recovered.
+     */
+    void finish(int tableId) throws IOException {
+        JournaledGame table = tables.remove(tableId);
+        if (table != null) {
+            finishedSequences.put(tableId, table.getSequence());
+        }
+        Files.deleteIfExists(checkpointPath(tableId));
+        deleteObsoleteSegments();
+    }
+
+    private void deleteObsoleteSegments() throws IOException {
+        Iterator<Map.Entry<Path, Map<Integer, Long>>> iterator = sealed.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Map<Integer, Long>> entry = iterator.next();
+            boolean obsolete = true;
+            for (Map.Entry<Integer, Long> written : entry.getValue().entrySet()) {
+                JournaledGame table = tables.get(written.getKey());
+                if (table != null && table.getCheckpointSequence() < written.getValue()) {
+                    obsolete = false;
+                    break;
+                }
+            }
+            if (obsolete) {
+                Files.deleteIfExists(entry.getKey());
+                iterator.remove();
+            }
+        }
+        // A finished table's sequence is needed only while its records are on disk.
+        finishedSequences.keySet().removeIf(tableId -> !hasRecords(tableId));
+    }
+
+    private boolean hasRecords(int tableId) {
+        if (current.containsKey(tableId)) {
+            return true;
+        }
+        for (Map<Integer, Long> written : sealed.values()) {
+            if (written.containsKey(tableId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("journal-%06d.wal", ++segmentNumber));
+        segment = FileChannel.open(segmentPath, WRITE, CREATE_NEW);
+    }
+
+    private Path checkpointPath(int tableId) {
+        return directory.resolve("table-" + tableId + ".ckpt");
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        segment.close();
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.wal")) {
+            files.forEach(segments::add);
+        }
+        segments.sort((a, b) -> Integer.compare(number(a), number(b)));
+        return segments;
+    }
+
+    private static int number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring("journal-".length(), name.length() - ".wal".length()));
+    }
+
+    private static final class Recovered {
+        final Game game;
+        final Player[] byIndex;
+        long sequence;
+        boolean broken;
+
+        Recovered(Game game, long sequence) {
+            this.game = game;
+            this.byIndex = game.getPlayers().toArray(new Player[0]);
+            this.sequence = sequence;
+        }
+    }
+
+    private static Map<Integer, Recovered> recover(Path directory, List<Path> segments, GameBoard board,
+                                                   PlayerStrategy strategy, GameEvents events) throws IOException {
+        Map<Integer, Recovered> games = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "table-*.ckpt")) {
+            for (Path file : files) {
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+                int tableId = data.getInt();
+                long sequence = data.getLong();
+                byte[] snapshot = new byte[data.remaining()];
+                data.get(snapshot);
+                games.put(tableId, new Recovered(GameSnapshot.fromBytes(snapshot, board, strategy, events), sequence));
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        scan:
+        for (Path path : segments) {
+            ByteBuffer data;
+            try (FileChannel channel = FileChannel.open(path, READ)) {
+                data = ByteBuffer.allocate((int) channel.size());
+                while (data.hasRemaining() && channel.read(data) >= 0) {
+                }
+                data.flip();
+            }
+            while (data.remaining() >= HEADER + 4) {
+                int start = data.position();
+                int tableId = data.getInt();
+                long sequence = data.getLong();
+                int length = data.getInt();
+                if (length < 0 || data.remaining() < length + 4) {
+                    break scan;
+                }
+                ByteBuffer record = data.duplicate();
+                record.position(start).limit(start + HEADER + length);
+                crc.reset();
+                crc.update(record);
+                data.position(start + HEADER + length);
+                if (data.getInt() != (int) crc.getValue()) {
+                    break scan;
+                }
+                Recovered game = games.get(tableId);
+                if (game == null || game.broken || sequence <= game.sequence) {
+                    continue;
+                }
+                if (sequence != game.sequence + 1) {
+                    // A missing record: what follows cannot be applied to this table.
+                    game.broken = true;
+                    continue;
+                }
+                ByteBuffer payload = data.duplicate();
+                payload.position(start + HEADER).limit(start + HEADER + length);
+                try {
+                    JournaledGame.apply(payload, game.game, game.byIndex);
+                } catch (BufferUnderflowException e) {
+                    throw new EOFException("Journal record for table " + tableId + " is truncated");
+                }
+                game.sequence = sequence;
+            }
+        }
+        return games;
+    }
+}
+
+/**
+ * One game written to a {@link GameJournal}. Call {@link #recordTurn()} after each turn
+ * (or any other step that changes the game); it appends what changed since the last
+ * call and checkpoints every few turns.
+ * <p>
+ * A record's payload starts with the round as an int, the current player's index as a
+ * short and the random generator's state as a long, followed by tagged changes. Players
+ * are identified by their index in the last checkpoint, since a checkpoint leaves out
+ * players who have retired:
+ * <pre>
+ *   1 money     short player, int money
+ *   2 position  short player, short position
+ *   3 jail      short player, byte turns in jail, byte 1 if in jail
+ *   4 owner     short position, short owner's player index + 1, or 0
+ *   5 retired   short player
+ *   6 houses    short position, byte houses
+ * </pre>
+ */
+final class JournaledGame {
+    private static final byte MONEY = 1;
+    private static final byte POSITION = 2;
+    private static final byte JAIL = 3;
+    private static final byte OWNER = 4;
+    private static final byte RETIRED = 5;
+    private static final byte HOUSES = 6;
+
+    private final GameJournal journal;
+    private final int tableId;
+    private final Game game;
+    private final GameState state;
+    private long sequence;
+    private long checkpointSequence;
+    private ByteBuffer payload = ByteBuffer.allocate(256);
+
+    private final int[] money;
+    private final short[] position;
+    private final byte[] turnsInJail;
+    private final boolean[] inJail;
+    private final short[] owner;
+    private final byte[] houses;
+    private final boolean[] active;
+    private final boolean[] stillActive;
+    private final int[] indexBySeat;
+
+    JournaledGame(GameJournal journal, int tableId, Game game, long sequence) {
+        this.journal = journal;
+        this.tableId = tableId;
+        this.game = game;
+        this.state = game.getState();
+        this.sequence = sequence;
+        int seats = state.seats();
+        this.money = new int[seats];
+        this.position = new short[seats];
+        this.turnsInJail = new byte[seats];
+        this.inJail = new boolean[seats];
+        this.owner = state.ownerBySquare.clone();
+        this.houses = state.houses.clone();
+        this.active = new boolean[seats];
+        this.stillActive = new boolean[seats];
+        this.indexBySeat = new int[seats];
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    public int getTableId() {
+        return tableId;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Journals the changes since the last call, and checkpoints the game if
+     * {@link GameJournal#getCheckpointInterval()} turns have passed since the last one.
+     */
+    public void recordTurn() throws IOException {
+        sequence++;
+        if (sequence - checkpointSequence >= journal.getCheckpointInterval()) {
+            checkpoint();
+            return;
+        }
+        payload.clear();
+        ensure(4 + 2 + 8);
+        payload.putInt(game.getCurrentRound());
+        payload.putShort((short) game.getCurrentPlayerIndex());
+        payload.putLong(game.getRandom().getState());
+
+        Arrays.fill(stillActive, false);
+        for (Player player : game.activePlayers()) {
+            stillActive[player.getSeat()] = true;
+        }
+        for (int seat = 0; seat < active.length; seat++) {
+            if (!active[seat]) {
+                continue;
+            }
+            short index = (short) indexBySeat[seat];
+            if (!stillActive[seat]) {
+                ensure(3);
+                payload.put(RETIRED).putShort(index);
+                active[seat] = false;
+                continue;
+            }
+            if (state.money[seat] != money[seat]) {
+                money[seat] = state.money[seat];
+                ensure(7);
+                payload.put(MONEY).putShort(index).putInt(money[seat]);
+            }
+            if (state.position[seat] != position[seat]) {
+                position[seat] = state.position[seat];
+                ensure(5);
+                payload.put(POSITION).putShort(index).putShort(position[seat]);
+            }
+            if (state.turnsInJail[seat] != turnsInJail[seat] || state.isInJail(seat) != inJail[seat]) {
+                turnsInJail[seat] = state.turnsInJail[seat];
+                inJail[seat] = state.isInJail(seat);
+                ensure(5);
+                payload.put(JAIL).putShort(index).put(turnsInJail[seat]).put((byte) (inJail[seat] ? 1 : 0));
+            }
+        }
+        short[] owners = state.ownerBySquare;
+        for (int square = 1; square < owners.length; square++) {
+            if (owners[square] != owner[square]) {
+                owner[square] = owners[square];
+                ensure(5);
+                int index = owner[square] == GameState.NO_OWNER ? 0 : indexBySeat[owner[square]] + 1;
+                payload.put(OWNER).putShort((short) square).putShort((short) index);
+            }
+            if (state.houses[square] != houses[square]) {
+                houses[square] = state.houses[square];
+                ensure(4);
+                payload.put(HOUSES).putShort((short) square).put(houses[square]);
+            }
+        }
+        payload.flip();
+        journal.append(tableId, sequence, payload);
+    }
+
+    /**
+     * Writes a checkpoint of the game now, after which the journal only needs the
+     * turns that follow.
+     */
+    public void checkpoint() throws IOException {
+        journal.writeCheckpoint(tableId, sequence, GameSnapshot.toBytes(game));
+        checkpointSequence = sequence;
+
+        Arrays.fill(active, false);
+        List<Player> players = game.activePlayers();
+        for (int index = 0; index < players.size(); index++) {
+            int seat = players.get(index).getSeat();
+            active[seat] = true;
+            indexBySeat[seat] = index;
+            money[seat] = state.money[seat];
+            position[seat] = state.position[seat];
+            turnsInJail[seat] = state.turnsInJail[seat];
+            inJail[seat] = state.isInJail(seat);
+        }
+        System.arraycopy(state.ownerBySquare, 0, owner, 0, owner.length);
+        System.arraycopy(state.houses, 0, houses, 0, houses.length);
+    }
+
+    /**
+     * Stops journaling this game, typically once it is over.
+     */
+    public void finish() throws IOException {
+        journal.finish(tableId);
+    }
+
+    private void ensure(int bytes) {
+        if (payload.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(payload.capacity() * 2 + bytes);
+            payload.flip();
+            payload = larger.put(payload);
+        }
+    }
+
+    /**
+     * Applies one record's payload to a game rebuilt from a checkpoint, whose players
+     * at the time of the checkpoint are {@code byIndex}.
+     */
+    static void apply(ByteBuffer payload, Game game, Player[] byIndex) throws IOException {
+        int round = payload.getInt();
+        int currentPlayerIndex = payload.getShort();
+        long randomState = payload.getLong();
+        while (payload.hasRemaining()) {
+            byte tag = payload.get();
+            switch (tag) {
+                case MONEY: {
+                    Player player = byIndex[payload.getShort()];
+                    player.restore(payload.getInt(), player.getPosition(), player.isInJail(),
+                            player.getTurnsInJail());
+                    break;
+                }
+                case POSITION: {
+                    Player player = byIndex[payload.getShort()];
+                    player.restore(player.getMoney(), payload.getShort(), player.isInJail(),
+                            player.getTurnsInJail());
+                    break;
+                }
+                case JAIL: {
+                    Player player = byIndex[payload.getShort()];
+                    int turns = payload.get();
+                    player.restore(player.getMoney(), player.getPosition(), payload.get() != 0, turns);
+                    break;
+                }
+                case OWNER: {
+                    int square = payload.getShort();
+                    int index = payload.getShort();
+                    game.setOwner(square, index == 0 ? null : byIndex[index - 1]);
+                    break;
+                }
+                case RETIRED:
+                    game.removePlayer(byIndex[payload.getShort()]);
+                    break;
+                case HOUSES:
+                    game.setHouses(payload.getShort(), payload.get());
+                    break;
+                default:
+                    throw new IOException("Unknown journal entry " + tag);
+            }
+        }
+        game.restoreProgress(round, currentPlayerIndex, randomState);
+    }
+}
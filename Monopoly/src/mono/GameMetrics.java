@@ -0,0 +1,299 @@
+package mono;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters and latency histograms for turns, landings, rent, bankruptcies
+ * and saves, switched on with {@code -Dmono.metrics=true}.
+ * <p>
+ * Every hook is written as {@code if (GameMetrics.ENABLED)}. {@link #ENABLED} is a
+ * {@code static final} field, so when it is false the JIT folds each hook away and a
+ * game runs exactly the code it ran before metrics existed.
+ * <p>
+ * When enabled, the per-turn work stays inside the game: each {@link Game} counts its
+ * turns, landings, rent and bankruptcies in a plain {@link Tally} and adds it to the
+ * shared {@link LongAdder}s every {@value #SAMPLE_INTERVAL} turns, when the game ends,
+ * and from {@link Game#flushMetrics()} when it is dropped early. The same turn is timed
+ * for the latency histogram, so the clock is read on one turn in
+ * {@value #SAMPLE_INTERVAL}. Forks are what-ifs and count nothing. Saves and loads are
+ * rare enough to go straight to the shared counters.
+ * <p>
+ * The numbers are published as the {@link GameMetricsMXBean} {@code mono:type=GameMetrics},
+ * and {@code -Dmono.metrics.dumpSeconds=N} also prints {@link #report()} to standard
+ * error every N seconds.
+ */
+final class GameMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("mono.metrics");
+
+    static final int SAMPLE_INTERVAL = 64;
+
+    /**
+     * Names for the square kinds {@link Game} dispatches on, indexed by kind.
+     */
+    private static final String[] KINDS = {
+            "Property", "Go", "Chance", "Income Tax", "Jail", "Go To Jail", "Free Parking", "Other"};
+
+    static final LongAdder TURNS = new LongAdder();
+    static final LongAdder[] LANDINGS = new LongAdder[KINDS.length];
+    static final LongAdder RENT_PAYMENTS = new LongAdder();
+    static final LongAdder RENT_PAID = new LongAdder();
+    static final LongAdder TAX_PAID = new LongAdder();
+    static final LongAdder BANKRUPTCIES = new LongAdder();
+    static final LongAdder GAMES_FINISHED = new LongAdder();
+    static final LongAdder SAVES = new LongAdder();
+    static final LongAdder LOADS = new LongAdder();
+
+    static final LatencyHistogram TURN_LATENCY = new LatencyHistogram();
+    static final LatencyHistogram SAVE_LATENCY = new LatencyHistogram();
+    static final LatencyHistogram LOAD_LATENCY = new LatencyHistogram();
+
+    private static final long STARTED = System.nanoTime();
+
+    static {
+        for (int kind = 0; kind < LANDINGS.length; kind++) {
+            LANDINGS[kind] = new LongAdder();
+        }
+        if (ENABLED) {
+            register();
+            int dumpSeconds = Integer.getInteger("mono.metrics.dumpSeconds", 0);
+            if (dumpSeconds > 0) {
+                startDump(dumpSeconds);
+            }
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    static void saved(long startNanos) {
+        SAVES.increment();
+        SAVE_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    static void loaded(long startNanos) {
+        LOADS.increment();
+        LOAD_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns every counter and latency as a few lines of text.
+     */
+    static String report() {
+        StringBuilder report = new StringBuilder(512);
+        report.append("turns ").append(TURNS.sum())
+                .append(" (").append(Math.round(turnsPerSecond())).append("/s)")
+                .append(", games finished ").append(GAMES_FINISHED.sum())
+                .append(", bankruptcies ").append(BANKRUPTCIES.sum()).append('\n');
+        report.append("rent ").append(RENT_PAID.sum()).append(" in ").append(RENT_PAYMENTS.sum())
+                .append(" payments, tax ").append(TAX_PAID.sum()).append('\n');
+        report.append("landings");
+        for (Map.Entry<String, Long> landing : landings().entrySet()) {
+            report.append(' ').append(landing.getKey()).append('=').append(landing.getValue());
+        }
+        report.append('\n');
+        report.append("turn ns ");
+        TURN_LATENCY.appendTo(report);
+        report.append("\nsave ns ");
+        SAVE_LATENCY.appendTo(report);
+        report.append("\nload ns ");
+        LOAD_LATENCY.appendTo(report);
+        return report.append('\n').toString();
+    }
+
+    static double turnsPerSecond() {
+        return TURNS.sum() / ((System.nanoTime() - STARTED) / 1e9);
+    }
+
+    static Map<String, Long> landings() {
+        Map<String, Long> landings = new LinkedHashMap<>();
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            landings.put(KINDS[kind], LANDINGS[kind].sum());
+        }
+        return landings;
+    }
+
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new Bean(), new ObjectName("mono:type=GameMetrics"));
+        } catch (JMException e) {
+            System.err.println("Could not register game metrics: " + e);
+        }
+    }
+
+    private static void startDump(int seconds) {
+        ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "game-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dump.scheduleAtFixedRate(() -> System.err.print(report()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One game's counts since they were last added to the shared counters. Only the
+     * thread playing the game touches it.
+     */
+    static final class Tally {
+        private long turns;
+        private long flushedTurns;
+        private final long[] landings = new long[KINDS.length];
+        private long rentPayments;
+        private long rentPaid;
+        private long taxPaid;
+        private long bankruptcies;
+
+        /**
+         * Counts a turn and returns true if it is the one in {@value #SAMPLE_INTERVAL}
+         * to time and flush on.
+         */
+        boolean sampleTurn() {
+            return (++turns & (SAMPLE_INTERVAL - 1)) == 0;
+        }
+
+        void landed(int kind) {
+            landings[kind]++;
+        }
+
+        void rentPaid(int amount) {
+            rentPayments++;
+            rentPaid += amount;
+        }
+
+        void taxPaid(int amount) {
+            taxPaid += amount;
+        }
+
+        void bankrupt() {
+            bankruptcies++;
+        }
+
+        void flush() {
+            TURNS.add(turns - flushedTurns);
+            flushedTurns = turns;
+            for (int kind = 0; kind < landings.length; kind++) {
+                if (landings[kind] != 0) {
+                    LANDINGS[kind].add(landings[kind]);
+                    landings[kind] = 0;
+                }
+            }
+            RENT_PAYMENTS.add(rentPayments);
+            RENT_PAID.add(rentPaid);
+            TAX_PAID.add(taxPaid);
+            BANKRUPTCIES.add(bankruptcies);
+            rentPayments = rentPaid = taxPaid = bankruptcies = 0;
+        }
+    }
+
+    private static final class Bean implements GameMetricsMXBean {
+        @Override public long getTurns() { return TURNS.sum(); }
+        @Override public double getTurnsPerSecond() { return turnsPerSecond(); }
+        @Override public Map<String, Long> getLandings() { return landings(); }
+        @Override public long getRentPayments() { return RENT_PAYMENTS.sum(); }
+        @Override public long getRentPaid() { return RENT_PAID.sum(); }
+        @Override public long getTaxPaid() { return TAX_PAID.sum(); }
+        @Override public long getBankruptcies() { return BANKRUPTCIES.sum(); }
+        @Override public long getGamesFinished() { return GAMES_FINISHED.sum(); }
+        @Override public long getSaves() { return SAVES.sum(); }
+        @Override public long getLoads() { return LOADS.sum(); }
+        @Override public long getTurnLatencyP50() { return TURN_LATENCY.quantile(0.5); }
+        @Override public long getTurnLatencyP99() { return TURN_LATENCY.quantile(0.99); }
+        @Override public long getTurnLatencyMax() { return TURN_LATENCY.max(); }
+        @Override public long getSaveLatencyP99() { return SAVE_LATENCY.quantile(0.99); }
+        @Override public long getLoadLatencyP99() { return LOAD_LATENCY.quantile(0.99); }
+        @Override public String getReport() { return report(); }
+    }
+}
+
+/**
+ * A thread-safe histogram of non-negative values in log-linear buckets, in the style of
+ * HdrHistogram: values below {@code 2^SUB_BITS} get a bucket each, and every power of
+ * two above that is split into {@code 2^SUB_BITS} equal buckets, so a reported quantile
+ * is within about 6% of the true value across the whole {@code long} range. Buckets
+ * are {@link LongAdder}s, which stripe themselves once threads contend.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final LongAdder[] buckets = new LongAdder[(64 - SUB_BITS) * SUB_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets[bucketOf(value)].increment();
+        count.increment();
+        max.accumulate(value);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the lower bound of the bucket holding the {@code q} quantile, or 0 if
+     * nothing has been recorded.
+     */
+    long quantile(double q) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return max.get();
+    }
+
+    void appendTo(StringBuilder out) {
+        out.append("p50 ").append(quantile(0.5))
+                .append(" p90 ").append(quantile(0.9))
+                .append(" p99 ").append(quantile(0.99))
+                .append(" max ").append(max())
+                .append(" (").append(count()).append(" samples)");
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        return (long) (SUB_COUNT + bucket % SUB_COUNT) << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,41 @@
+package mono;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link GameMetrics}, registered as {@code mono:type=GameMetrics} when
+ * metrics are enabled. Counts run from JVM start; latencies are in nanoseconds.
+ */
+public interface GameMetricsMXBean {
+    long getTurns();
+
+    double getTurnsPerSecond();
+
+    Map<String, Long> getLandings();
+
+    long getRentPayments();
+
+    long getRentPaid();
+
+    long getTaxPaid();
+
+    long getBankruptcies();
+
+    long getGamesFinished();
+
+    long getSaves();
+
+    long getLoads();
+
+    long getTurnLatencyP50();
+
+    long getTurnLatencyP99();
+
+    long getTurnLatencyMax();
+
+    long getSaveLatencyP99();
+
+    long getLoadLatencyP99();
+
+    String getReport();
+}
@@ -0,0 +1,70 @@
+package mono;
+
+/**
+ * SplitMix64 generator owned by a single game. Unlike a shared {@link java.util.Random}
+ * it never contends between threads, and a game's whole sequence of dice and chance
+ * draws is fixed by its seed.
+ */
+final class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public GameRandom() {
+        this(mix64(System.nanoTime()) ^ Thread.currentThread().getId());
+    }
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Returns the generator for game number {@code gameIndex} of a run started from
+     * {@code masterSeed}. Games get the same generator however they are sharded.
+     */
+    public static GameRandom forGame(long masterSeed, long gameIndex) {
+        return new GameRandom(mix64(masterSeed + gameIndex * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Returns the internal state; {@code new GameRandom(getState())} continues the same sequence.
+     */
+    long getState() {
+        return state;
+    }
+
+    /**
+     * Moves the generator to a state returned earlier by {@link #getState()}.
+     */
+    void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a value in [0, bound).
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Returns a new generator seeded from this one, for handing to another worker.
+     */
+    public GameRandom split() {
+        return new GameRandom(mix64(nextLong()));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,367 @@
+package mono;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Everything needed to replay a game exactly: the player names, the starting state of
+ * the {@link GameRandom} that drives dice and chance cards, and every buy and jail fine
+ * decision in the order it was made.
+ * <p>
+ * While recording, a {@link GameSnapshot} is kept in memory every {@code interval}
+ * rounds together with how many decisions had been made by then, so {@link #seek}
+ * rebuilds the game at any round by replaying from the nearest snapshot instead of from
+ * the first round.
+ * <p>
+ * Recordings are written to disk in a small binary format, big-endian:
+ * <pre>
+ *   int    magic "MNRC"
+ *   short  version
+ *   long   random generator state at the start of the game
+ *   long   board hash (version 2): FNV-1a of the board's {@link BoardSpec#toBytes} form
+ *   int    snapshot interval in rounds
+ *   short  player count, then for each player: short name length, UTF-8 name
+ *   int    decision count, then the decisions as a bitset of longs
+ * </pre>
+ * Snapshots are not written; they are rebuilt by replaying the game once on load, so
+ * {@link #read} refuses a board whose hash differs from the recorded one. The hash is 0
+ * for boards the spec cannot express, and version 1 files have none; neither is checked.
+ */
+final class GameRecording {
+    static final int MAGIC = 0x4D4E5243;
+    static final short VERSION = 2;
+    static final int DEFAULT_INTERVAL = 10;
+
+    private final GameBoard board;
+    private final List<String> playerNames;
+    private final long seed;
+    private final int interval;
+    private final DecisionLog decisions;
+    private final List<byte[]> snapshots = new ArrayList<>();
+    private final List<Integer> decisionMarks = new ArrayList<>();
+    private int finalRound;
+
+    private GameRecording(GameBoard board, List<String> playerNames, long seed, int interval,
+                          DecisionLog decisions) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be at least one round");
+        }
+        this.board = board;
+        this.playerNames = List.copyOf(playerNames);
+        this.seed = seed;
+        this.interval = interval;
+        this.decisions = decisions;
+    }
+
+    /**
+     * Plays a complete game with decisions from {@code strategy} and records it.
+     */
+    static GameRecording record(GameBoard board, List<String> playerNames, PlayerStrategy strategy,
+                                GameEvents events, long seed, int interval) {
+        GameRecording recording = new GameRecording(board, playerNames, seed, interval, new DecisionLog());
+        recording.play(new RecordingStrategy(strategy, recording.decisions), events, recording.decisions::position);
+        return recording;
+    }
+
+    static GameRecording record(List<String> playerNames, PlayerStrategy strategy, long seed) {
+        return record(GameBoard.standard(), playerNames, strategy, GameEvents.NONE, seed, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Plays the game through, keeping a snapshot every {@code interval} rounds along with
+     * {@code decisionsMade} at that point.
+     */
+    private void play(PlayerStrategy strategy, GameEvents events, IntSupplier decisionsMade) {
+        Game game = new Game(board, playerNames, strategy, events, new GameRandom(seed));
+        while (!game.isGameOver()) {
+            if (game.getCurrentRound() % interval == 0) {
+                snapshots.add(GameSnapshot.toBytes(game));
+                decisionMarks.add(decisionsMade.getAsInt());
+            }
+            game.playRound();
+        }
+        game.announceWinner();
+        finalRound = game.getCurrentRound();
+    }
+
+    /**
+     * Returns the game as it stood at the end of {@code round}, or at the start of the
+     * game for round 0. Later turns can be played on the returned game; its decisions
+     * keep coming from the recording until they run out.
+     */
+    Game seek(int round, GameEvents events) {
+        if (round < 0 || round > finalRound) {
+            throw new IllegalArgumentException("Round " + round + " is not between 0 and " + finalRound);
+        }
+        int index = Math.min(round / interval, snapshots.size() - 1);
+        Game game;
+        try {
+            game = GameSnapshot.fromBytes(snapshots.get(index), board,
+                    new ReplayStrategy(decisions, decisionMarks.get(index)), events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        while (game.getCurrentRound() < round) {
+            game.playRound();
+        }
+        return game;
+    }
+
+    Game seek(int round) {
+        return seek(round, GameEvents.NONE);
+    }
+
+    /**
+     * Replays the whole game from its first round into {@code events}.
+     */
+    Game replay(GameEvents events) {
+        Game game = new Game(board, playerNames, new ReplayStrategy(decisions, 0), events, new GameRandom(seed));
+        game.play();
+        return game;
+    }
+
+    int getFinalRound() {
+        return finalRound;
+    }
+
+    int getDecisionCount() {
+        return decisions.position();
+    }
+
+    int getInterval() {
+        return interval;
+    }
+
+    void write(String fileName) throws IOException {
+        byte[][] names = new byte[playerNames.size()][];
+        long[] bits = decisions.toLongArray();
+        int size = 4 + 2 + 8 + 8 + 4 + 2 + 4 + 8 * bits.length;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = playerNames.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putLong(seed);
+        buffer.putLong(boardHash(board));
+        buffer.putInt(interval);
+        buffer.putShort((short) names.length);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+        buffer.putInt(decisions.position());
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), WRITE, CREATE, TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    static GameRecording read(String fileName) throws IOException {
+        return read(fileName, GameBoard.standard());
+    }
+
+    /**
+     * Loads a recording made on {@code board} and replays it once to rebuild its
+     * snapshots.
+     *
+     * @throws IOException if the file is not a recording, is corrupt, or was made on
+     *         another board
+     */
+    static GameRecording read(String fileName, GameBoard board) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a Monopoly recording");
+            }
+            short version = buffer.getShort();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            long seed = buffer.getLong();
+            if (version >= 2) {
+                long recorded = buffer.getLong();
+                long expected = boardHash(board);
+                if (recorded != 0 && expected != 0 && recorded != expected) {
+                    throw new IOException("Recording was made on a different board");
+                }
+            }
+            int interval = check(buffer.getInt(), 1, Integer.MAX_VALUE, "snapshot interval");
+            int playerCount = check(buffer.getShort(), 1, GameState.MAX_SEATS, "player count");
+            List<String> names = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                byte[] name = new byte[check(buffer.getShort(), 0, buffer.remaining(), "name length")];
+                buffer.get(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+            }
+            int count = check(buffer.getInt(), 0, Integer.MAX_VALUE - 63, "decision count");
+            check((count + 63) >>> 6, 0, buffer.remaining() / 8, "decision words");
+            long[] bits = new long[(count + 63) >>> 6];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = buffer.getLong();
+            }
+
+            DecisionLog decisions = new DecisionLog(bits, count);
+            GameRecording recording = new GameRecording(board, names, seed, interval, decisions);
+            ReplayStrategy replay = new ReplayStrategy(decisions, 0);
+            recording.play(replay, GameEvents.NONE, replay::getPosition);
+            return recording;
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Recording is truncated");
+        }
+    }
+
+    /**
+     * Returns the hash of the board's spec form, or 0 if the spec cannot express it.
+     */
+    static long boardHash(GameBoard board) {
+        try {
+            return BoardCache.hash(BoardSpec.toBytes(board));
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private static int check(int value, int min, int max, String field) throws IOException {
+        if (value < min || value > max) {
+            throw new IOException("Corrupt recording: " + field + " " + value + " is not between " + min + " and " + max);
+        }
+        return value;
+    }
+}
+
+/**
+ * A growable list of yes/no decisions packed 64 to a long.
+ */
+final class DecisionLog {
+    private long[] bits;
+    private int size;
+
+    DecisionLog() {
+        this.bits = new long[4];
+    }
+
+    DecisionLog(long[] bits, int size) {
+        this.bits = bits;
+        this.size = size;
+    }
+
+    void append(boolean decision) {
+        if (size == bits.length * 64) {
+            bits = Arrays.copyOf(bits, bits.length * 2);
+        }
+        if (decision) {
+            bits[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    boolean get(int index) {
+        if (index >= size) {
+            throw new IllegalStateException("Recording has only " + size + " decisions");
+        }
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    int position() {
+        return size;
+    }
+
+    long[] toLongArray() {
+        return Arrays.copyOf(bits, (size + 63) >>> 6);
+    }
+}
+
+/**
+ * Passes decisions through from another strategy and appends each one to a log.
+ */
+class RecordingStrategy implements PlayerStrategy {
+    private final PlayerStrategy strategy;
+    private final DecisionLog log;
+
+    RecordingStrategy(PlayerStrategy strategy, DecisionLog log) {
+        this.strategy = strategy;
+        this.log = log;
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        boolean decision = strategy.buyProperty(player, property, game);
+        log.append(decision);
+        return decision;
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        boolean decision = strategy.buildHouse(player, property, game);
+        log.append(decision);
+        return decision;
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        boolean decision = strategy.payJailFine(player, game);
+        log.append(decision);
+        return decision;
+    }
+}
+
+/**
+ * Answers every decision from a log, starting at a given decision.
+ */
+class ReplayStrategy implements PlayerStrategy {
+    private final DecisionLog log;
+    private int next;
+
+    ReplayStrategy(DecisionLog log, int start) {
+        this.log = log;
+        this.next = start;
+    }
+
+    int getPosition() {
+        return next;
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return log.get(next++);
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return log.get(next++);
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return log.get(next++);
+    }
+}
@@ -0,0 +1,210 @@
+package mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Hosts one {@link GameSession} per connection on a plain text line protocol: each line
+ * a client sends is one answer to the console menu, and the server replies with what
+ * the console would print.
+ * <p>
+ * A single selector thread reads, plays and writes for every table. Turns take
+ * microseconds and sessions never block waiting for a player, so an idle table costs
+ * only its socket, its session and a small read buffer, and tens of thousands fit in
+ * one JVM. All tables share one board and one output buffer.
+ * <p>
+ * A table stops reading while more than {@value #MAX_PENDING} bytes of replies wait for
+ * a client that is not reading them, and reads again once they are all sent. A table
+ * whose game throws is closed without disturbing the others.
+ */
+class GameServer implements Runnable {
+    static final int MAX_LINE = 256;
+    static final int MAX_PENDING = 16 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final GameBoard board = GameBoard.standard();
+    private final GameSession.Output output = new GameSession.Output();
+    private volatile boolean running = true;
+    private int openTables;
+
+    /**
+     * The state of one connection: its session, the bytes of a partly received line
+     * and any replies the client has not accepted yet.
+     */
+    private static final class Table {
+        final GameSession session;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>(2);
+        int pending;
+
+        Table(GameSession session) {
+            this.session = session;
+        }
+    }
+
+    public GameServer(int port) throws IOException {
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getOpenTables() {
+        return openTables;
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    } catch (RuntimeException e) {
+                        if (!(key.attachment() instanceof Table)) {
+                            throw e;
+                        }
+                        System.err.println("Closing a table after an error: " + e);
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            Table table = new Table(new GameSession(board, output));
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ, table);
+            openTables++;
+            send(key, table, table.session.greeting());
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Table table = (Table) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(table.in) < 0) {
+            close(key);
+            return;
+        }
+        ByteBuffer in = table.in;
+        in.flip();
+        int lineStart = 0;
+        for (int i = 0; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                String line = new String(in.array(), lineStart, i - lineStart, StandardCharsets.UTF_8);
+                lineStart = i + 1;
+                send(key, table, table.session.handle(line));
+                if (table.session.isClosed()) {
+                    break;
+                }
+            }
+        }
+        in.position(lineStart);
+        in.compact();
+        if (!in.hasRemaining()) {
+            send(key, table, "Line too long\n");
+            table.in.clear();
+        }
+    }
+
+    private void send(SelectionKey key, Table table, String text) throws IOException {
+        if (!text.isEmpty()) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            table.out.add(ByteBuffer.wrap(bytes));
+            table.pending += bytes.length;
+        }
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Table table = (Table) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        while (!table.out.isEmpty()) {
+            ByteBuffer buffer = table.out.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                // Stop taking lines from a client that is not reading the replies.
+                key.interestOps(table.pending > MAX_PENDING
+                        ? SelectionKey.OP_WRITE : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            table.out.poll();
+            table.pending -= buffer.capacity();
+        }
+        if (table.session.isClosed()) {
+            close(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void close(SelectionKey key) {
+        if (key.channel().isOpen() && key.attachment() instanceof Table) {
+            openTables--;
+            ((Table) key.attachment()).session.close();
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        GameServer server = new GameServer(port);
+        System.out.println("Monopoly server listening on port " + server.getPort());
+        server.run();
+    }
+}
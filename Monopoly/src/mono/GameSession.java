@@ -0,0 +1,300 @@
+package mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One table of a {@link GameServer}: a line-in, text-out state machine that plays the
+ * same game and prints the same text as the console menu, without holding a thread
+ * while it waits for the players.
+ * <p>
+ * Buy, build and jail fine prompts come up in the middle of a turn. Instead of blocking, the
+ * session snapshots the game before each roll and answers decisions from the answers
+ * received so far. When it runs out, it sends the turn's output up to the prompt and
+ * waits. Once the answer arrives, the game is rolled back to the snapshot and the turn
+ * is played again. Dice come from the game's {@link GameRandom}, so the
+ * turn repeats exactly, and the text the players have already seen is skipped.
+ * Metrics are flushed before each snapshot, so a turn played again is counted once.
+ */
+class GameSession {
+    static final String NAMES_PROMPT = "Enter player names separated by commas: ";
+
+    private enum Phase { NAMES, MENU, DECISION, CLOSED }
+
+    private enum Question { BUY, BUILD, JAIL_FINE }
+
+    /**
+     * Thrown by the session's strategy when a decision has no answer yet. It carries
+     * no stack trace, so one instance is shared.
+     */
+    private static final class DecisionNeeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final DecisionNeeded INSTANCE = new DecisionNeeded();
+
+        private DecisionNeeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Where turns print to. A turn's output is collected here only while the turn is
+     * played, so sessions handled by one thread can share an instance; a
+     * {@link PrintStream} with its buffers is larger than an idle session.
+     */
+    static final class Output {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final GameEvents events = new ConsoleEvents(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+    }
+
+    private final GameBoard board;
+    private final Output output;
+    private final PlayerStrategy strategy = new SessionStrategy();
+    private final List<Boolean> answers = new ArrayList<>();
+    private Phase phase = Phase.NAMES;
+    private Game game;
+    private StatusView view;
+    private byte[] turnStart;
+    private int turnOutputSent;
+    private int nextAnswer;
+    private String prompt;
+    private Question question;
+
+    public GameSession() {
+        this(GameBoard.standard(), new Output());
+    }
+
+    public GameSession(GameBoard board, Output output) {
+        this.board = board;
+        this.output = output;
+    }
+
+    public String greeting() {
+        return NAMES_PROMPT;
+    }
+
+    /**
+     * Ends the session, for example when the player leaves or disconnects.
+     */
+    public void close() {
+        if (game != null && phase != Phase.CLOSED) {
+            game.flushMetrics();
+        }
+        phase = Phase.CLOSED;
+    }
+
+    public boolean isClosed() {
+        return phase == Phase.CLOSED;
+    }
+
+    /**
+     * Returns true while a buy, build or jail fine question is waiting for an answer.
+     */
+    public boolean isWaitingForDecision() {
+        return phase == Phase.DECISION;
+    }
+
+    /**
+     * Returns true if the pending question is whether to buy a property.
+     */
+    public boolean isWaitingToBuy() {
+        return phase == Phase.DECISION && question == Question.BUY;
+    }
+
+    /**
+     * Returns true if the pending question is whether to build a house.
+     */
+    public boolean isWaitingToBuild() {
+        return phase == Phase.DECISION && question == Question.BUILD;
+    }
+
+    /**
+     * Returns true if the pending question is whether to pay the jail fine.
+     */
+    public boolean isWaitingToPayFine() {
+        return phase == Phase.DECISION && question == Question.JAIL_FINE;
+    }
+
+    /**
+     * Returns the table's game, or null before the players have been named. While a
+     * decision is pending, the game is part way through the current turn.
+     */
+    Game getGame() {
+        return game;
+    }
+
+    /**
+     * Returns a cached status view of the game, replaced when a rollback replaces the game.
+     */
+    StatusView statusView() {
+        if (view == null || view.getGame() != game) {
+            view = new StatusView(game);
+        }
+        return view;
+    }
+
+    /**
+     * Saves the game between turns and returns the text to send back.
+     */
+    public String save(String fileName) {
+        if (phase != Phase.MENU) {
+            return "The game can only be saved between turns.\n";
+        }
+        try {
+            game.saveGame(fileName);
+            return "Game saved successfully!\n";
+        } catch (IOException e) {
+            return "Error saving game: " + e.getMessage() + "\n";
+        }
+    }
+
+    /**
+     * Handles one line of input and returns the text to send back.
+     */
+    public String handle(String line) {
+        String input = line.trim();
+        switch (phase) {
+            case NAMES:
+                return startGame(input);
+            case MENU:
+                return menuChoice(input);
+            case DECISION:
+                return decide(input.toLowerCase());
+            default:
+                return "";
+        }
+    }
+
+    private String startGame(String input) {
+        List<String> names = new ArrayList<>();
+        for (String name : input.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        if (names.size() < 2 || names.size() > 6) {
+            return "Must have 2-6 players\n" + NAMES_PROMPT;
+        }
+        game = new Game(board, names, strategy, output.events, new GameRandom());
+        phase = Phase.MENU;
+        return menu();
+    }
+
+    private String menu() {
+        return "\n" + statusView().getGameStatus() + "\n"
+                + "1. Roll Dice\n"
+                + "2. View All Players Status\n"
+                + "3. View Next Player\n"
+                + "4. Leave Table\n"
+                + "Enter your choice: ";
+    }
+
+    private String menuChoice(String input) {
+        switch (input) {
+            case "1":
+                game.flushMetrics();
+                turnStart = GameSnapshot.toBytes(game);
+                turnOutputSent = 0;
+                answers.clear();
+                return playTurn();
+            case "2":
+                return statusView().getAllPlayersStatus() + "\n" + menu();
+            case "3":
+                return "Next player: " + game.getNextPlayer().getName() + "\n" + menu();
+            case "4":
+                close();
+                return "Goodbye!\n";
+            default:
+                return "Invalid choice. Please try again.\n" + menu();
+        }
+    }
+
+    private String decide(String input) {
+        if (input.equals("y") || input.equals("n") || question != Question.BUY) {
+            answers.add(input.equals("y"));
+            rollBack();
+            phase = Phase.MENU;
+            return playTurn();
+        }
+        return "Invalid input! Please enter 'y' for yes or 'n' for no.\n" + prompt;
+    }
+
+    /**
+     * Plays the current player's turn with the answers so far, and returns either the
+     * rest of the turn followed by the menu, or the output up to the next prompt.
+     */
+    private String playTurn() {
+        nextAnswer = 0;
+        output.bytes.reset();
+        try {
+            game.takeTurn(game.getCurrentPlayer());
+        } catch (DecisionNeeded e) {
+            phase = Phase.DECISION;
+            return unsentOutput() + prompt;
+        }
+        game.moveToNextPlayer();
+        if (game.getCurrentPlayer() == game.getPlayers().get(0)) {
+            game.incrementRound();
+        }
+        if (game.isGameOver()) {
+            game.announceWinner();
+            phase = Phase.CLOSED;
+            return unsentOutput();
+        }
+        return unsentOutput() + menu();
+    }
+
+    /**
+     * Returns what the turn has printed beyond what was sent before the last prompt.
+     */
+    private String unsentOutput() {
+        byte[] bytes = output.bytes.toByteArray();
+        String text = new String(bytes, turnOutputSent, bytes.length - turnOutputSent, StandardCharsets.UTF_8);
+        turnOutputSent = bytes.length;
+        return text;
+    }
+
+    private void rollBack() {
+        try {
+            game = GameSnapshot.fromBytes(turnStart, board, strategy, output.events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answers decisions from the answers received during this turn, in order.
+     */
+    private final class SessionStrategy implements PlayerStrategy {
+        @Override
+        public boolean buyProperty(Player player, PropertySquare property, Game game) {
+            return answer(Question.BUY, String.format("%s can buy %s for $%d. Do you want to buy? (y/n): ",
+                    player.getName(), property.getName(), property.getPrice()));
+        }
+
+        @Override
+        public boolean buildHouse(Player player, PropertySquare property, Game game) {
+            return answer(Question.BUILD, String.format("%s can build on %s. Do you want to build? (y/n): ",
+                    player.getName(), property.getName()));
+        }
+
+        @Override
+        public boolean payJailFine(Player player, Game game) {
+            return answer(Question.JAIL_FINE, "Do you want to pay $150 to get out of jail? (y/n): ");
+        }
+
+        private boolean answer(Question kind, String text) {
+            if (nextAnswer < answers.size()) {
+                return answers.get(nextAnswer++);
+            }
+            prompt = text;
+            question = kind;
+            throw DecisionNeeded.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package mono;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Binary save format for {@link Game}. Big-endian, version 3:
+ * <pre>
+ *   int    magic "MNPL"
+ *   short  version
+ *   int    current round
+ *   short  current player index
+ *   long   random generator state
+ *   short  player count, then for each player:
+ *            short name length, UTF-8 name, int money, short position,
+ *            byte turns in jail, byte 1 if in jail else 0
+ *   int    board size, then one short per square: owner's player index + 1, or 0
+ *   int    number of squares with houses, then for each: int position, byte houses
+ * </pre>
+ * Version 2 files have no houses section.
+ * Version 1 files, written before boards could grow past 20 squares, store the current
+ * player index, player count, positions, board size and owners as single bytes; they
+ * are still read. The board layout itself is not saved: a snapshot is loaded onto the
+ * standard board unless another {@link GameBoard} is supplied.
+ * <p>
+ * Every count, index and position is range-checked while reading, so a corrupt or
+ * hostile file fails with an {@link IOException} rather than a runtime exception.
+ */
+final class GameSnapshot {
+    static final int MAGIC = 0x4D4E504C;
+    static final short VERSION = 3;
+
+    private GameSnapshot() {}
+
+    static void write(Game game, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), WRITE, CREATE, TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(toBytes(game));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    static Game read(String fileName) throws IOException {
+        return read(fileName, GameBoard.standard());
+    }
+
+    static Game read(String fileName, GameBoard board) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+            return read(buffer, board);
+        }
+    }
+
+    static byte[] toBytes(Game game) {
+        List<Player> players = game.getPlayers();
+        byte[][] names = new byte[players.size()][];
+        int built = 0;
+        for (int position = 1; position <= game.getBoardSize(); position++) {
+            if (game.getHouses(position) > 0) {
+                built++;
+            }
+        }
+        int size = 4 + 2 + 4 + 2 + 8 + 2 + 4 + 2 * game.getBoardSize() + 4 + 5 * built;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = players.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length + 4 + 2 + 1 + 1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(game.getCurrentRound());
+        buffer.putShort((short) game.getCurrentPlayerIndex());
+        buffer.putLong(game.getRandom().getState());
+
+        buffer.putShort((short) players.size());
+        for (int i = 0; i < names.length; i++) {
+            Player player = players.get(i);
+            buffer.putShort((short) names[i].length);
+            buffer.put(names[i]);
+            buffer.putInt(player.getMoney());
+            buffer.putShort((short) player.getPosition());
+            buffer.put((byte) player.getTurnsInJail());
+            buffer.put((byte) (player.isInJail() ? 1 : 0));
+        }
+
+        buffer.putInt(game.getBoardSize());
+        for (int position = 1; position <= game.getBoardSize(); position++) {
+            Player owner = game.getOwner(position);
+            buffer.putShort((short) (owner == null ? 0 : players.indexOf(owner) + 1));
+        }
+        buffer.putInt(built);
+        for (int position = 1; position <= game.getBoardSize(); position++) {
+            if (game.getHouses(position) > 0) {
+                buffer.putInt(position);
+                buffer.put((byte) game.getHouses(position));
+            }
+        }
+        return buffer.array();
+    }
+
+    static Game fromBytes(byte[] bytes) throws IOException {
+        return read(ByteBuffer.wrap(bytes), GameBoard.standard());
+    }
+
+    static Game fromBytes(byte[] bytes, GameBoard board) throws IOException {
+        return read(ByteBuffer.wrap(bytes), board);
+    }
+
+    /**
+     * Restores a snapshot with its decisions coming from {@code strategy} and its output
+     * going to {@code events}, instead of the console.
+     */
+    static Game fromBytes(byte[] bytes, GameBoard board, PlayerStrategy strategy, GameEvents events)
+            throws IOException {
+        return read(ByteBuffer.wrap(bytes), board, strategy, events);
+    }
+
+    private static Game read(ByteBuffer buffer, GameBoard board) throws IOException {
+        return read(buffer, board, new ConsoleStrategy(), ConsoleRenderer.console().events());
+    }
+
+    private static Game read(ByteBuffer buffer, GameBoard board, PlayerStrategy strategy, GameEvents events)
+            throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a Monopoly save file");
+            }
+            short version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported save file version " + version);
+            }
+            boolean wide = version >= 2;
+            int currentRound = check(buffer.getInt(), 0, Game.MAX_ROUNDS, "round");
+            int currentPlayerIndex = wide ? buffer.getShort() : buffer.get();
+            GameRandom random = new GameRandom(buffer.getLong());
+
+            int playerCount = check(wide ? buffer.getShort() : buffer.get(), 1, GameState.MAX_SEATS, "player count");
+            check(currentPlayerIndex, 0, playerCount - 1, "current player index");
+            List<String> names = new ArrayList<>(playerCount);
+            int[] money = new int[playerCount];
+            int[] positions = new int[playerCount];
+            int[] turnsInJail = new int[playerCount];
+            boolean[] inJail = new boolean[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                byte[] name = new byte[check(buffer.getShort(), 0, Short.MAX_VALUE, "name length")];
+                buffer.get(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+                money[i] = buffer.getInt();
+                positions[i] = wide ? buffer.getShort() : buffer.get();
+                turnsInJail[i] = check(buffer.get(), 0, Byte.MAX_VALUE, "turns in jail");
+                inJail[i] = buffer.get() != 0;
+            }
+
+            int boardSize = wide ? buffer.getInt() : buffer.get();
+            if (boardSize != board.getSize()) {
+                throw new IOException("Save file is for a board of " + boardSize + " squares");
+            }
+            for (int i = 0; i < playerCount; i++) {
+                check(positions[i], 1, boardSize, "position");
+            }
+            Game game = new Game(board, names, currentPlayerIndex, currentRound, strategy, events, random);
+            List<Player> players = game.getPlayers();
+            for (int i = 0; i < playerCount; i++) {
+                players.get(i).restore(money[i], positions[i], inJail[i], turnsInJail[i]);
+            }
+            for (int position = 1; position <= boardSize; position++) {
+                int owner = check(wide ? buffer.getShort() : buffer.get(), 0, playerCount, "owner");
+                if (owner > 0) {
+                    if (!(game.getSquare(position) instanceof PropertySquare)) {
+                        throw new IOException("Square " + position + " cannot have an owner");
+                    }
+                    game.setOwner(position, players.get(owner - 1));
+                }
+            }
+            int built = version >= 3 ? check(buffer.getInt(), 0, boardSize, "number of built squares") : 0;
+            for (int i = 0; i < built; i++) {
+                int position = buffer.getInt();
+                int houses = buffer.get();
+                if (position < 1 || position > boardSize || game.getOwner(position) == null
+                        || houses < 0 || houses > BoardLayout.HOTEL) {
+                    throw new IOException("Square " + position + " cannot have " + houses + " houses");
+                }
+                game.setHouses(position, houses);
+            }
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Save file is truncated");
+        }
+    }
+
+    private static int check(int value, int min, int max, String field) throws IOException {
+        if (value < min || value > max) {
+            throw new IOException("Corrupt save file: " + field + " " + value + " is not between "
+                    + min + " and " + max);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,195 @@
+package mono;
+
+import java.util.Arrays;
+
+/**
+ * Mutable state of one game as primitive arrays: per-seat money, position and jail
+ * state, the owning seat of every board position, the turn order of the seats still
+ * playing, the round, whose turn it is and the random generator. {@link Player} and
+ * {@link Game} are views over this state and the shared, immutable {@link BoardLayout},
+ * so a turn touches a few hundred bytes and allocates nothing, and copying a game's
+ * state is a handful of array copies.
+ * <p>
+ * Ownership is indexed both ways: {@code ownerBySquare} maps a position to its owner and
+ * {@code holdings} keeps a bitset of positions per seat, so both lookups and releasing a
+ * bankrupt player's properties cost time proportional to what that player owns.
+ */
+final class GameState {
+    static final int STARTING_MONEY = 1500;
+    static final int MAX_SEATS = Short.MAX_VALUE;
+    static final short NO_OWNER = -1;
+
+    final int[] money;
+    final short[] position;
+    final byte[] turnsInJail;
+    final long[] inJail;
+    final short[] ownerBySquare;
+    final long[] holdings;
+    private final int holdingWords;
+    /**
+     * Houses on each position, with {@link BoardLayout#HOTEL} for a hotel.
+     */
+    final byte[] houses;
+
+    /**
+     * Seats still playing in turn order, in the first {@code active} entries.
+     */
+    final short[] order;
+    int active;
+    int round;
+    int currentPlayerIndex;
+    final GameRandom random;
+
+    GameState(int seats, int squares) {
+        this(seats, squares, new GameRandom());
+    }
+
+    GameState(int seats, int squares, GameRandom random) {
+        money = new int[seats];
+        Arrays.fill(money, STARTING_MONEY);
+        position = new short[seats];
+        Arrays.fill(position, (short) 1);
+        turnsInJail = new byte[seats];
+        inJail = new long[(seats + 63) >>> 6];
+        ownerBySquare = new short[squares];
+        Arrays.fill(ownerBySquare, NO_OWNER);
+        holdingWords = (squares + 63) >>> 6;
+        holdings = new long[seats * holdingWords];
+        houses = new byte[squares];
+        order = new short[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            order[seat] = (short) seat;
+        }
+        active = seats;
+        this.random = random;
+    }
+
+    /**
+     * Copies {@code other}, including a generator that continues from the same point.
+     */
+    GameState(GameState other) {
+        this(other, new GameRandom(other.random.getState()));
+    }
+
+    /**
+     * Copies {@code other} but draws from {@code random}.
+     */
+    GameState(GameState other, GameRandom random) {
+        money = other.money.clone();
+        position = other.position.clone();
+        turnsInJail = other.turnsInJail.clone();
+        inJail = other.inJail.clone();
+        ownerBySquare = other.ownerBySquare.clone();
+        holdingWords = other.holdingWords;
+        holdings = other.holdings.clone();
+        houses = other.houses.clone();
+        order = other.order.clone();
+        active = other.active;
+        round = other.round;
+        currentPlayerIndex = other.currentPlayerIndex;
+        this.random = random;
+    }
+
+    int seats() {
+        return money.length;
+    }
+
+    boolean isInJail(int seat) {
+        return (inJail[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    void setOwner(int position, int seat) {
+        int previous = ownerBySquare[position];
+        if (previous != NO_OWNER) {
+            holdings[previous * holdingWords + (position >>> 6)] &= ~(1L << position);
+        }
+        ownerBySquare[position] = (short) seat;
+        if (seat != NO_OWNER) {
+            holdings[seat * holdingWords + (position >>> 6)] |= 1L << position;
+        }
+    }
+
+    /**
+     * Returns the first position at or after {@code from} owned by {@code seat}, or -1.
+     */
+    int nextOwned(int seat, int from) {
+        int word = from >>> 6;
+        if (word >= holdingWords) {
+            return -1;
+        }
+        int base = seat * holdingWords;
+        long bits = holdings[base + word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == holdingWords) {
+                return -1;
+            }
+            bits = holdings[base + word];
+        }
+    }
+
+    /**
+     * Returns true if {@code seat} owns every position in {@code bits} of holdings word
+     * {@code word}.
+     */
+    boolean ownsAll(int seat, int word, long bits) {
+        return (holdings[seat * holdingWords + word] & bits) == bits;
+    }
+
+    int countOwned(int seat) {
+        int count = 0;
+        for (int word = 0; word < holdingWords; word++) {
+            count += Long.bitCount(holdings[seat * holdingWords + word]);
+        }
+        return count;
+    }
+
+    /**
+     * Returns every property of {@code seat} to the bank, with any houses on them.
+     */
+    void releaseAll(int seat) {
+        for (int position = nextOwned(seat, 0); position >= 0; position = nextOwned(seat, position + 1)) {
+            ownerBySquare[position] = NO_OWNER;
+            houses[position] = 0;
+        }
+        Arrays.fill(holdings, seat * holdingWords, (seat + 1) * holdingWords, 0L);
+    }
+
+    /**
+     * Sets {@code holdings} from {@code ownerBySquare}, after the owners were filled
+     * in directly.
+     */
+    void rebuildHoldings() {
+        Arrays.fill(holdings, 0L);
+        for (int position = 0; position < ownerBySquare.length; position++) {
+            int seat = ownerBySquare[position];
+            if (seat != NO_OWNER) {
+                holdings[seat * holdingWords + (position >>> 6)] |= 1L << position;
+            }
+        }
+    }
+
+    /**
+     * Takes {@code seat} out of the turn order, keeping the others in order. Does
+     * nothing if the seat has already left.
+     */
+    void removeFromOrder(int seat) {
+        for (int i = 0; i < active; i++) {
+            if (order[i] == seat) {
+                System.arraycopy(order, i + 1, order, i, active - i - 1);
+                order[--active] = (short) seat;
+                return;
+            }
+        }
+    }
+
+    void setInJail(int seat, boolean jailed) {
+        if (jailed) {
+            inJail[seat >>> 6] |= 1L << seat;
+        } else {
+            inJail[seat >>> 6] &= ~(1L << seat);
+        }
+    }
+}
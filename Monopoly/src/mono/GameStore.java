@@ -0,0 +1,241 @@
+package mono;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the state of many resident games off the heap, one fixed-size slot per game
+ * in direct buffers, for running millions of bot games at once without the garbage
+ * collector tracing millions of {@link Game}s.
+ * <p>
+ * All games in a store share one board and one list of player names. A slot holds
+ * only what {@link GameState} holds, grouped by width:
+ * <pre>
+ *   long   random state, in-jail bits (one word per 64 seats)
+ *   int    round, current player index, players still active, money per seat
+ *   short  position per seat, turn order, owning seat per square (-1 for none)
+ *   byte   turns in jail per seat, houses per square
+ * </pre>
+ * which is 127 bytes for four players on the standard board, rounded up to a multiple
+ * of eight. Ownership bitsets are rebuilt from the owners when a slot is loaded.
+ * <p>
+ * Games are stepped through a {@link View}: a single {@link Game} that loads a slot,
+ * plays on it and stores it back. A view is the only heap a store needs per thread,
+ * so heap use stays the same however many games are resident. Loading and storing a
+ * slot costs about as much as playing a round, so step several rounds at a time when
+ * the caller allows. Buffers are allocated {@value #CHUNK_BYTES} bytes at a time as
+ * games are added.
+ */
+final class GameStore {
+    static final int CHUNK_BYTES = 1 << 24;
+
+    private final GameBoard board;
+    private final List<String> playerNames;
+    private final int seats;
+    private final int squares;
+    private final int jailWords;
+    private final int intsOffset;
+    private final int shortsOffset;
+    private final int bytesOffset;
+    private final int slotSize;
+    private final int slotsPerChunk;
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    GameStore(GameBoard board, List<String> playerNames) {
+        // Checks the board and the player count once, as a game on them would.
+        Game template = new Game(board, playerNames, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(0));
+        this.board = board;
+        this.playerNames = List.copyOf(playerNames);
+        this.seats = playerNames.size();
+        this.squares = template.getState().ownerBySquare.length;
+        this.jailWords = template.getState().inJail.length;
+        this.intsOffset = Long.BYTES * (1 + jailWords);
+        this.shortsOffset = intsOffset + Integer.BYTES * (3 + seats);
+        this.bytesOffset = shortsOffset + Short.BYTES * (2 * seats + squares);
+        this.slotSize = (bytesOffset + seats + squares + 7) & ~7;
+        this.slotsPerChunk = CHUNK_BYTES / slotSize;
+    }
+
+    int getSlotSize() {
+        return slotSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the bytes of direct memory allocated so far.
+     */
+    long offHeapBytes() {
+        return (long) chunks.length * slotsPerChunk * slotSize;
+    }
+
+    /**
+     * Adds a game that has not started, rolling from {@code random}, and returns its slot.
+     */
+    synchronized int add(GameRandom random) {
+        int slot = size;
+        int chunk = slot / slotsPerChunk;
+        if (chunk == chunks.length) {
+            Chunk[] grown = Arrays.copyOf(chunks, chunk + 1);
+            grown[chunk] = new Chunk(slotsPerChunk * slotSize);
+            chunks = grown;
+        }
+        // Fill the slot before publishing it, so no view can load it half written.
+        write(chunks[chunk], slot, new GameState(seats, squares, random));
+        size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Replaces the game in {@code slot} with a new one rolling from {@code random}, so
+     * finished games can make room for new ones.
+     */
+    void reset(int slot, GameRandom random) {
+        write(chunk(slot), slot, new GameState(seats, squares, random));
+    }
+
+    /**
+     * Returns a game view that decides with {@code strategy} and reports to
+     * {@code events}. A view is used by one thread at a time; different views may
+     * work on different slots in parallel.
+     */
+    View view(PlayerStrategy strategy, GameEvents events) {
+        return new View(strategy, events);
+    }
+
+    private Chunk chunk(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("No game in slot " + slot);
+        }
+        return chunks[slot / slotsPerChunk];
+    }
+
+    private void write(Chunk chunk, int slot, GameState state) {
+        int base = slot % slotsPerChunk * slotSize;
+        int longs = base / Long.BYTES;
+        chunk.longs.put(longs, state.random.getState());
+        chunk.longs.put(longs + 1, state.inJail);
+        int ints = (base + intsOffset) / Integer.BYTES;
+        chunk.ints.put(ints, state.round);
+        chunk.ints.put(ints + 1, state.currentPlayerIndex);
+        chunk.ints.put(ints + 2, state.active);
+        chunk.ints.put(ints + 3, state.money);
+        int shorts = (base + shortsOffset) / Short.BYTES;
+        chunk.shorts.put(shorts, state.position);
+        chunk.shorts.put(shorts + seats, state.order);
+        chunk.shorts.put(shorts + 2 * seats, state.ownerBySquare);
+        int bytes = base + bytesOffset;
+        chunk.bytes.put(bytes, state.turnsInJail);
+        chunk.bytes.put(bytes + seats, state.houses);
+    }
+
+    private void read(int slot, GameState state) {
+        Chunk chunk = chunk(slot);
+        int base = slot % slotsPerChunk * slotSize;
+        int longs = base / Long.BYTES;
+        state.random.setState(chunk.longs.get(longs));
+        chunk.longs.get(longs + 1, state.inJail);
+        int ints = (base + intsOffset) / Integer.BYTES;
+        state.round = chunk.ints.get(ints);
+        state.currentPlayerIndex = chunk.ints.get(ints + 1);
+        state.active = chunk.ints.get(ints + 2);
+        chunk.ints.get(ints + 3, state.money);
+        int shorts = (base + shortsOffset) / Short.BYTES;
+        chunk.shorts.get(shorts, state.position);
+        chunk.shorts.get(shorts + seats, state.order);
+        chunk.shorts.get(shorts + 2 * seats, state.ownerBySquare);
+        int bytes = base + bytesOffset;
+        chunk.bytes.get(bytes, state.turnsInJail);
+        chunk.bytes.get(bytes + seats, state.houses);
+        state.rebuildHoldings();
+    }
+
+    /**
+     * One direct buffer and its typed views, so each array of a slot moves with one
+     * bulk copy. Only absolute reads and writes are used, so views on different
+     * threads never disturb each other.
+     */
+    private static final class Chunk {
+        final ByteBuffer bytes;
+        final ShortBuffer shorts;
+        final IntBuffer ints;
+        final LongBuffer longs;
+
+        Chunk(int capacity) {
+            bytes = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            shorts = bytes.asShortBuffer();
+            ints = bytes.asIntBuffer();
+            longs = bytes.asLongBuffer();
+        }
+    }
+
+    /**
+     * One {@link Game} that stands in for any game in the store: {@link #load} copies a
+     * slot into it and {@link #store} copies it back.
+     */
+    final class View {
+        private final Game game;
+        private int slot = -1;
+
+        private View(PlayerStrategy strategy, GameEvents events) {
+            this.game = new Game(board, playerNames, strategy, events, new GameRandom(0));
+        }
+
+        /**
+         * Loads {@code slot} and returns the game, which stays valid until the next load.
+         */
+        Game load(int slot) {
+            read(slot, game.getState());
+            this.slot = slot;
+            return game;
+        }
+
+        /**
+         * Writes the loaded game back to its slot.
+         */
+        void store() {
+            if (slot < 0) {
+                throw new IllegalStateException("No game loaded");
+            }
+            write(chunk(slot), slot, game.getState());
+        }
+
+        /**
+         * Plays the next round of the game in {@code slot}, announcing the winner if
+         * that ends it, and returns true if the game is over.
+         */
+        boolean playRound(int slot) {
+            return playRounds(slot, 1);
+        }
+
+        /**
+         * Plays up to {@code rounds} rounds of the game in {@code slot} with one load
+         * and one store, announcing the winner if the game ends, and returns true if
+         * the game is over.
+         */
+        boolean playRounds(int slot, int rounds) {
+            Game game = load(slot);
+            if (game.isGameOver()) {
+                return true;
+            }
+            for (int i = 0; i < rounds && !game.isGameOver(); i++) {
+                game.playRound();
+            }
+            store();
+            if (game.isGameOver()) {
+                game.announceWinner();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes how often each square is landed on by solving the Markov chain of one
+ * player's position, instead of simulating games.
+ * <p>
+ * A turn starts either free on a square or in jail having served 0, 1 or 2 turns. Free
+ * turns move by two {@link Dice#SIDES}-sided dice, wrapping past Go; landing on a
+ * {@link GoToJailSquare} sends the player to jail at the board's jail position.
+ * Jail turns follow {@link Player#tryToGetOutOfJail}: doubles or a third turn release the
+ * player, who then moves by that roll. If {@code payJailFine} is set the player instead
+ * pays at the start of every jail turn and moves normally. Chance cards do not move players.
+ */
+final class LandingAnalyzer {
+    private static final int JAIL_TURNS = 3;
+    private static final double TOLERANCE = 1e-13;
+    private static final int MAX_ITERATIONS = 100_000;
+
+    private final Square[] squares;
+    private final int boardSize;
+    private final int jailPosition;
+    private final double[] stationary;
+    private final double[] landing;
+    private int iterations;
+
+    public LandingAnalyzer(Game game, boolean payJailFine) {
+        this(squaresOf(game), game.getJailPosition(), payJailFine);
+    }
+
+    public LandingAnalyzer(GameBoard board, boolean payJailFine) {
+        this(squaresOf(board), board.getJailPosition(), payJailFine);
+    }
+
+    private LandingAnalyzer(Square[] squares, int jailPosition, boolean payJailFine) {
+        this.squares = squares;
+        this.boardSize = squares.length - 1;
+        this.jailPosition = jailPosition;
+        this.stationary = new double[boardSize + JAIL_TURNS];
+        this.landing = new double[boardSize + 1];
+        solve(payJailFine);
+    }
+
+    private static Square[] squaresOf(Game game) {
+        Square[] squares = new Square[game.getBoardSize() + 1];
+        for (int position = 1; position < squares.length; position++) {
+            squares[position] = game.getSquare(position);
+        }
+        return squares;
+    }
+
+    private static Square[] squaresOf(GameBoard board) {
+        Square[] squares = new Square[board.getSize() + 1];
+        for (int position = 1; position < squares.length; position++) {
+            squares[position] = board.getSquare(position);
+        }
+        return squares;
+    }
+
+    /**
+     * States 0 to boardSize - 1 are free turns starting on squares 1 to boardSize; the
+     * last {@link #JAIL_TURNS} states are jail turns. Each state has one transition per
+     * dice outcome, stored flat in {@code next}, {@code lands} and {@code probability}.
+     */
+    private void solve(boolean payJailFine) {
+        int states = stationary.length;
+        int outcomes = Dice.SIDES * Dice.SIDES;
+        double outcomeProbability = 1.0 / outcomes;
+        int[] next = new int[states * outcomes];
+        int[] lands = new int[states * outcomes];
+
+        for (int state = 0; state < states; state++) {
+            int jailTurnsServed = state - boardSize;
+            for (int dice1 = 1; dice1 <= Dice.SIDES; dice1++) {
+                for (int dice2 = 1; dice2 <= Dice.SIDES; dice2++) {
+                    int k = state * outcomes + (dice1 - 1) * Dice.SIDES + (dice2 - 1);
+                    int from = jailTurnsServed < 0 ? state + 1 : jailPosition;
+                    boolean released = jailTurnsServed < 0 || payJailFine
+                            || dice1 == dice2 || jailTurnsServed + 1 >= JAIL_TURNS;
+                    if (!released) {
+                        lands[k] = 0;
+                        next[k] = state + 1;
+                        continue;
+                    }
+                    int to = move(from, dice1 + dice2);
+                    lands[k] = to;
+                    next[k] = squares[to] instanceof GoToJailSquare ? boardSize : to - 1;
+                }
+            }
+        }
+
+        // Power iteration on the lazy chain (I + P) / 2, which has the same stationary
+        // distribution but cannot oscillate.
+        double[] current = stationary;
+        double[] updated = new double[states];
+        current[0] = 1.0;
+        for (iterations = 1; iterations <= MAX_ITERATIONS; iterations++) {
+            for (int state = 0; state < states; state++) {
+                updated[state] = 0.5 * current[state];
+            }
+            for (int k = 0; k < next.length; k++) {
+                updated[next[k]] += 0.5 * current[k / outcomes] * outcomeProbability;
+            }
+            double change = 0;
+            for (int state = 0; state < states; state++) {
+                change += Math.abs(updated[state] - current[state]);
+                current[state] = updated[state];
+            }
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+
+        for (int k = 0; k < lands.length; k++) {
+            if (lands[k] != 0) {
+                landing[lands[k]] += stationary[k / outcomes] * outcomeProbability;
+            }
+        }
+    }
+
+    private int move(int from, int roll) {
+        return (from - 1 + roll) % boardSize + 1;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the probability that a turn ends with landing on {@code position}.
+     */
+    public double getLandingProbability(int position) {
+        return landing[position];
+    }
+
+    /**
+     * Returns the share of turns that start in jail.
+     */
+    public double getJailProbability() {
+        double jailed = 0;
+        for (int state = boardSize; state < stationary.length; state++) {
+            jailed += stationary[state];
+        }
+        return jailed;
+    }
+
+    /**
+     * Returns the rent an owner of {@code position} collects per opponent turn, on average.
+     */
+    public double getExpectedRent(int position) {
+        if (!(squares[position] instanceof PropertySquare)) {
+            return 0;
+        }
+        return landing[position] * ((PropertySquare) squares[position]).getRent();
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the board's properties ordered by expected rent per turn, highest first.
+     */
+    public List<PropertySquare> rankProperties() {
+        List<PropertySquare> properties = new ArrayList<>();
+        for (int position = 1; position <= boardSize; position++) {
+            if (squares[position] instanceof PropertySquare) {
+                properties.add((PropertySquare) squares[position]);
+            }
+        }
+        properties.sort(Comparator.comparingDouble(
+                (PropertySquare property) -> getExpectedRent(property.getPosition())).reversed());
+        return properties;
+    }
+
+    public static void main(String[] args) {
+        Game game = new Game(List.of("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE);
+        long start = System.nanoTime();
+        LandingAnalyzer analyzer = new LandingAnalyzer(game, false);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Solved in %d iterations, %.2f ms%n", analyzer.getIterations(), elapsed / 1e6);
+        System.out.printf("Turns starting in jail: %.4f%n", analyzer.getJailProbability());
+        for (PropertySquare property : analyzer.rankProperties()) {
+            int position = property.getPosition();
+            System.out.printf("%2d. %-10s landing %.4f - rent/turn $%6.2f - payback %5.0f turns%n",
+                    position, property.getName(), analyzer.getLandingProbability(position),
+                    analyzer.getExpectedRent(position), property.getPrice() / analyzer.getExpectedRent(position));
+        }
+    }
+}
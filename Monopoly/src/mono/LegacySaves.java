@@ -0,0 +1,151 @@
+package mono;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reads games saved with Java serialization before {@link GameSnapshot} existed.
+ * <p>
+ * The classes below mirror the serialized fields of the old {@code Game}, {@code Player},
+ * {@code Dice} and square classes. {@link LegacyInputStream} substitutes them for the
+ * class names found in the file, with or without the {@code mono} package, so the live
+ * classes are free to change shape.
+ */
+final class LegacySaves {
+    private LegacySaves() {}
+
+    static boolean isSerialized(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+            return in.readShort() == ObjectStreamConstants.STREAM_MAGIC;
+        } catch (java.io.EOFException e) {
+            return false;
+        }
+    }
+
+    static Game loadGame(String fileName) throws IOException, ClassNotFoundException {
+        SavedGame saved;
+        try (ObjectInputStream in = new LegacyInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            saved = (SavedGame) in.readObject();
+        }
+        return saved.toGame();
+    }
+
+    static class SavedGame implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        List<SavedPlayer> players;
+        SavedSquare[] board;
+        SavedDice dice1, dice2;
+        int currentPlayerIndex;
+        int currentRound;
+
+        Game toGame() {
+            List<String> names = new ArrayList<>();
+            for (SavedPlayer player : players) {
+                names.add(player.name);
+            }
+
+            // The old java.util.Random state cannot be carried over, so the dice start a new sequence.
+            Game game = new Game(GameBoard.standard(), names, currentPlayerIndex, currentRound, new GameRandom());
+            List<Player> restored = game.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                SavedPlayer player = players.get(i);
+                restored.get(i).restore(player.money, player.position, player.inJail, player.turnsInJail);
+            }
+            for (SavedSquare square : board) {
+                if (square instanceof SavedPropertySquare && square.position <= game.getBoardSize()) {
+                    int owner = players.indexOf(((SavedPropertySquare) square).owner);
+                    if (owner >= 0 && game.getSquare(square.position) instanceof PropertySquare) {
+                        game.setOwner(square.position, restored.get(owner));
+                    }
+                }
+            }
+            return game;
+        }
+    }
+
+    static class SavedPlayer implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+        int money;
+        int position;
+        boolean inJail;
+        int turnsInJail;
+    }
+
+    static class SavedDice implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Random random;
+    }
+
+    abstract static class SavedSquare implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int position;
+        String name;
+    }
+
+    static class SavedPropertySquare extends SavedSquare {
+        private static final long serialVersionUID = 1L;
+
+        int price;
+        int rent;
+        SavedPlayer owner;
+    }
+
+    static class SavedChanceSquare extends SavedSquare {
+        private static final long serialVersionUID = 1L;
+
+        Random random;
+    }
+
+    static class SavedPlainSquare extends SavedSquare {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Maps the old class names onto the mirror classes above while reading.
+     */
+    static class LegacyInputStream extends ObjectInputStream {
+        private static final Map<String, Class<?>> MIRRORS = new HashMap<>();
+
+        static {
+            MIRRORS.put("Game", SavedGame.class);
+            MIRRORS.put("Player", SavedPlayer.class);
+            MIRRORS.put("Dice", SavedDice.class);
+            MIRRORS.put("Square", SavedSquare.class);
+            MIRRORS.put("[LSquare;", SavedSquare[].class);
+            MIRRORS.put("PropertySquare", SavedPropertySquare.class);
+            MIRRORS.put("ChanceSquare", SavedChanceSquare.class);
+            for (String plain : new String[] {"GoSquare", "IncomeTaxSquare", "JailSquare",
+                    "GoToJailSquare", "FreeParkingSquare"}) {
+                MIRRORS.put(plain, SavedPlainSquare.class);
+            }
+        }
+
+        LegacyInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass descriptor = super.readClassDescriptor();
+            Class<?> mirror = MIRRORS.get(descriptor.getName().replace("mono.", ""));
+            return mirror != null ? ObjectStreamClass.lookup(mirror) : descriptor;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Benchmarks a {@link GameServer}: opens {@code tables} connections, of which
+ * {@code active} keep playing complete four player games (rolling, buying everything,
+ * paying every jail fine) while the rest sit idle, and reports request throughput and
+ * reply latency. Finished games reconnect and start again until the time is up.
+ * <pre>
+ *   java mono.LoadGenerator [port] [tables] [active] [seconds]
+ * </pre>
+ */
+class LoadGenerator {
+    private static final byte[] NAMES = "Ann,Ben,Cat,Dan\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ROLL = "1\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] YES = "y\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAIL = 64;
+
+    private final InetSocketAddress address;
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private long[] latencies = new long[1 << 16];
+    private long requests;
+    private long games;
+
+    /**
+     * One connection: the end of the text received so far, which tells which prompt
+     * is waiting, and when the last request went out.
+     */
+    private static final class Client {
+        final boolean active;
+        final StringBuilder tail = new StringBuilder(TAIL * 2);
+        long sentAt;
+
+        Client(boolean active) {
+            this.active = active;
+        }
+    }
+
+    LoadGenerator(int port) throws IOException {
+        this.address = new InetSocketAddress("127.0.0.1", port);
+        this.selector = Selector.open();
+    }
+
+    private void connect(boolean active) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Client(active));
+    }
+
+    void run(int tables, int active, long seconds) throws IOException {
+        for (int i = 0; i < tables; i++) {
+            connect(i < active);
+        }
+        System.out.printf("Opened %d tables, %d active%n", tables, active);
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                read(key);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        report(elapsed);
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Client client = (Client) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            key.cancel();
+            channel.close();
+            games++;
+            connect(client.active);
+            return;
+        }
+        client.tail.append(new String(readBuffer.array(), 0, read, StandardCharsets.UTF_8));
+        if (client.tail.length() > TAIL) {
+            client.tail.delete(0, client.tail.length() - TAIL);
+        }
+        if (!client.active) {
+            return;
+        }
+
+        byte[] reply;
+        String tail = client.tail.toString();
+        if (tail.endsWith("(y/n): ")) {
+            reply = YES;
+        } else if (tail.endsWith("Enter your choice: ")) {
+            reply = ROLL;
+        } else if (tail.endsWith(GameSession.NAMES_PROMPT)) {
+            reply = NAMES;
+        } else {
+            return;
+        }
+        long now = System.nanoTime();
+        if (client.sentAt != 0) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[(int) requests++] = now - client.sentAt;
+        }
+        client.tail.setLength(0);
+        client.sentAt = now;
+        channel.write(ByteBuffer.wrap(reply));
+    }
+
+    private void report(long elapsed) {
+        long[] sorted = Arrays.copyOf(latencies, (int) requests);
+        Arrays.sort(sorted);
+        System.out.printf("%d requests in %d ms (%.0f requests/sec), %d games finished%n",
+                requests, elapsed / 1_000_000, requests / (elapsed / 1e9), games);
+        if (sorted.length > 0) {
+            System.out.printf("Latency p50 %d us, p99 %d us, max %d us%n",
+                    sorted[sorted.length / 2] / 1000, sorted[(int) (sorted.length * 0.99)] / 1000,
+                    sorted[sorted.length - 1] / 1000);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int tables = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int active = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        new LoadGenerator(port).run(tables, Math.min(active, tables), seconds);
+    }
+}
@@ -1,9 +1,12 @@
+package mono;
+
 import java.util.*;
 import java.io.*;
 import java.io.Serializable;
 
 
 abstract class Square implements Serializable {
+    private static final long serialVersionUID = 6399989016746366112L;
     private final int position;
     private final String name;
 
@@ -19,11 +22,10 @@ abstract class Square implements Serializable {
     void passBy(Player player, Game game) {}
 }
 
-class PropertySquare extends Square {
+final class PropertySquare extends Square {
     private static final long serialVersionUID = 1L;
     private final int price;
     private final int rent;
-    private Player owner;
 
     public PropertySquare(int position, String name, int price, int rent) {
         super(position, name);
@@ -34,57 +36,46 @@ class PropertySquare extends Square {
 
     @Override
     void landOn(Player player, Game game) {
+        GameEvents events = game.getEvents();
+        Player owner = game.getOwner(getPosition());
         if (owner == null) {
             if (player.getMoney() >= price) {
-                boolean validInput = false;
-                while (!validInput) {
-                    System.out.printf("%s can buy %s for $%d. Do you want to buy? (y/n): ",
-                            player.getName(), getName(), price);
-                    Scanner scanner = new Scanner(System.in);
-                    String choice = scanner.nextLine().trim().toLowerCase();
-
-                    if (choice.equals("y")) {
-                        player.reduceMoney(price);
-                        owner = player;
-                        System.out.printf("%s bought %s for $%d%n",
-                                player.getName(), getName(), price);
-                        validInput = true;
-                    } else if (choice.equals("n")) {
-                        System.out.printf("%s chose not to buy %s%n",
-                                player.getName(), getName());
-                        validInput = true;
-                    } else {
-                        System.out.println("Invalid input! Please enter 'y' for yes or 'n' for no.");
-                    }
+                if (game.getStrategy().buyProperty(player, this, game)) {
+                    player.reduceMoney(price);
+                    game.setOwner(getPosition(), player);
+                    events.propertyBought(player, this);
+                } else {
+                    events.propertyDeclined(player, this);
                 }
             } else {
-                System.out.printf("%s cannot afford to buy %s%n",
-                        player.getName(), getName());
+                events.cannotAfford(player, this);
             }
         } else if (owner != player) {
-            System.out.printf("%s pays $%d rent to %s%n",
-                    player.getName(), rent, owner.getName());
+            int rent = game.rentAt(getPosition());
+            events.rentPaid(player, owner, rent);
             player.reduceMoney(rent);
             owner.addMoney(rent);
+            if (GameMetrics.ENABLED && game.getTally() != null) {
+                game.getTally().rentPaid(rent);
+            }
         } else {
-            System.out.printf("%s owns %s - no rent to pay%n",
-                    player.getName(), getName());
+            events.ownPropertyVisited(player, this);
         }
     }
 
-    public void setOwner(Player owner) {
-        this.owner = owner;
+    public int getPrice() {
+        return price;
     }
 
-    public Player getOwner() {
-        return owner;
+    public int getRent() {
+        return rent;
     }
 }
 
-class GoSquare extends Square {
+final class GoSquare extends Square {
     private static final long serialVersionUID = 1L;
 
-    private static final int SALARY = 1500;
+    static final int SALARY = 1500;
 
     public GoSquare() {
         super(1, "Go");
@@ -94,8 +85,7 @@ class GoSquare extends Square {
     void landOn(Player player, Game game) {
 
         player.addMoney(SALARY);
-        System.out.printf("%s receives $%d salary for landing on GO%n",
-                player.getName(), SALARY);
+        game.getEvents().salaryCollected(player, SALARY, true);
     }
 
     @Override
@@ -103,38 +93,34 @@ class GoSquare extends Square {
 
         if (player.getPosition() != 1) {
             player.addMoney(SALARY);
-            System.out.printf("%s receives $%d salary for passing GO%n",
-                    player.getName(), SALARY);
+            game.getEvents().salaryCollected(player, SALARY, false);
         }
     }
 }
 
-class ChanceSquare extends Square {
+final class ChanceSquare extends Square {
     private static final long serialVersionUID = 1L;
 
-    private final Random random = new Random();
-
     public ChanceSquare(int position) {
         super(position, "Chance");
     }
 
     @Override
     void landOn(Player player, Game game) {
+        GameRandom random = game.getRandom();
         if (random.nextBoolean()) {
             int gain = (random.nextInt(20) + 1) * 10;
             player.addMoney(gain);
-            System.out.printf("%s gains $%d from Chance%n",
-                    player.getName(), gain);
+            game.getEvents().chance(player, gain);
         } else {
             int loss = (random.nextInt(30) + 1) * 10;
             player.reduceMoney(loss);
-            System.out.printf("%s loses $%d from Chance%n",
-                    player.getName(), loss);
+            game.getEvents().chance(player, -loss);
         }
     }
 }
 
-class IncomeTaxSquare extends Square {
+final class IncomeTaxSquare extends Square {
     private static final long serialVersionUID = 1L;
 
     public IncomeTaxSquare(int position) {
@@ -143,15 +129,17 @@ class IncomeTaxSquare extends Square {
 
     @Override
     void landOn(Player player, Game game) {
-        System.out.printf("%s landed on Income Tax%n", player.getName());
+        game.getEvents().incomeTaxLanded(player);
         int tax = (player.getMoney() / 10) / 10 * 10;
         player.reduceMoney(tax);
-        System.out.printf("%s pays $%d in tax%n",
-                player.getName(), tax);
+        game.getEvents().taxPaid(player, tax);
+        if (GameMetrics.ENABLED && game.getTally() != null) {
+            game.getTally().taxPaid(tax);
+        }
     }
 }
 
-class JailSquare extends Square {
+final class JailSquare extends Square {
     private static final long serialVersionUID = 1L;
 
     public JailSquare() {
@@ -161,13 +149,12 @@ class JailSquare extends Square {
     @Override
     void landOn(Player player, Game game) {
         if (!player.isInJail()) {
-            System.out.printf("%s is just visiting jail%n",
-                    player.getName());
+            game.getEvents().justVisiting(player);
         }
     }
 }
 
-class GoToJailSquare extends Square {
+final class GoToJailSquare extends Square {
     private static final long serialVersionUID = 1L;
 
     public GoToJailSquare(int position) {
@@ -177,12 +164,12 @@ class GoToJailSquare extends Square {
     @Override
     void landOn(Player player, Game game) {
         player.goToJail();
-        player.setPosition(11);
-        System.out.printf("%s goes to jail%n", player.getName());
+        player.setPosition(game.getJailPosition());
+        game.getEvents().sentToJail(player);
     }
 }
 
-class FreeParkingSquare extends Square {
+final class FreeParkingSquare extends Square {
     private static final long serialVersionUID = 1L;
 
     public FreeParkingSquare(int position) {
@@ -191,178 +178,486 @@ class FreeParkingSquare extends Square {
 
     @Override
     void landOn(Player player, Game game) {
-        System.out.printf("%s lands on Free Parking. Nothing happens.%n",
-                player.getName());
+        game.getEvents().freeParking(player);
     }
 }
 
-class Player implements Serializable {
+/**
+ * One seat at the table. The player's money, position and jail state live in the
+ * game's {@link GameState}; this object is a view onto that seat.
+ */
+class Player {
     private final String name;
-    private int money;
-    private int position;
-    private boolean inJail;
-    private int turnsInJail;
+    private final GameState state;
+    private final int seat;
+    private final GameEvents events;
+    private final GameMetrics.Tally tally;
 
     public Player(String name) {
+        this(name, new GameState(1, 0), 0, GameEvents.NONE, null);
+    }
+
+    Player(String name, GameState state, int seat, GameEvents events, GameMetrics.Tally tally) {
         this.name = name;
-        this.money = 1500;
-        this.position = 1;
-        this.inJail = false;
-        this.turnsInJail = 0;
+        this.state = state;
+        this.seat = seat;
+        this.events = events;
+        this.tally = tally;
     }
 
     public String getName() { return name; }
-    public int getMoney() { return money; }
-    public int getPosition() { return position; }
-    public boolean isInJail() { return inJail; }
+    public int getMoney() { return state.money[seat]; }
+    public int getPosition() { return state.position[seat]; }
+    public boolean isInJail() { return state.isInJail(seat); }
+    int getTurnsInJail() { return state.turnsInJail[seat]; }
+    int getSeat() { return seat; }
 
     public void addMoney(int amount) {
-        money += amount;
+        state.money[seat] += amount;
     }
 
     public void reduceMoney(int amount) {
-        money -= amount;
-        if (money < 0) {
-            System.out.printf("%s has gone bankrupt!%n", name);
+        state.money[seat] -= amount;
+        if (state.money[seat] < 0) {
+            if (GameMetrics.ENABLED && tally != null) {
+                tally.bankrupt();
+            }
+            events.bankrupt(this);
         }
     }
 
     public void setPosition(int position) {
-        this.position = position;
+        state.position[seat] = (short) position;
     }
 
     public void goToJail() {
-        inJail = true;
-        turnsInJail = 0;
+        state.setInJail(seat, true);
+        state.turnsInJail[seat] = 0;
     }
 
     public boolean tryToGetOutOfJail(int dice1, int dice2) {
-        turnsInJail++;
+        int turnsInJail = ++state.turnsInJail[seat];
         if (dice1 == dice2 || turnsInJail >= 3) {
-            inJail = false;
+            state.setInJail(seat, false);
             if (turnsInJail >= 3) {
                 reduceMoney(150);
             }
-            turnsInJail = 0;
+            state.turnsInJail[seat] = 0;
             return true;
         }
         return false;
     }
 
     public void payJailFine() {
-        if (inJail && money >= 150) {
+        if (isInJail() && getMoney() >= 150) {
             reduceMoney(150);
-            inJail = false;
-            turnsInJail = 0;
-            System.out.printf("%s pays $150 to get out of jail%n", name);
+            state.setInJail(seat, false);
+            state.turnsInJail[seat] = 0;
+            events.jailFinePaid(this);
         }
     }
 
+    /**
+     * Overwrites this seat's state with values read from a saved game.
+     */
+    void restore(int money, int position, boolean inJail, int turnsInJail) {
+        state.money[seat] = money;
+        state.position[seat] = (short) position;
+        state.setInJail(seat, inJail);
+        state.turnsInJail[seat] = (byte) turnsInJail;
+    }
+
     public String getStatus() {
-        return String.format("%s - $%d - Position: %d%s",
-                name, money, position, inJail ? " (In Jail)" : "");
+        return name + " - $" + getMoney() + " - Position: " + getPosition() + (isInJail() ? " (In Jail)" : "");
     }
 }
 
-class Dice implements Serializable{
+class Dice {
+    static final int SIDES = 4;
+
+    private final GameRandom random;
 
-    private final Random random = new Random();
+    public Dice(GameRandom random) {
+        this.random = random;
+    }
 
     public int roll() {
-        return random.nextInt(4) + 1; // 4-sided die (1-4)
+        return random.nextInt(SIDES) + 1; // 4-sided die (1-4)
     }
 }
 
-class Game implements Serializable {
-    private List<Player> players;
-    private Square[] board;
+class Game {
+    private final List<Player> players;
+    private final Player[] seats;
+    private final BoardLayout layout;
+    private final Square[] board;
+    private final byte[] squareKinds;
+    private final int boardSize;
+    private final int jailPosition;
+    private final GameState state;
     private final Dice dice1, dice2;
-    private int currentPlayerIndex;
-    private int currentRound;
-    private static final int MAX_ROUNDS = 100;
+    private final PlayerStrategy strategy;
+    private final GameEvents events;
+    private final GameMetrics.Tally tally;
+    static final int MAX_ROUNDS = 100;
+
+    private static final byte PROPERTY = 0;
+    private static final byte GO = 1;
+    private static final byte CHANCE = 2;
+    private static final byte INCOME_TAX = 3;
+    private static final byte JAIL = 4;
+    private static final byte GO_TO_JAIL = 5;
+    private static final byte FREE_PARKING = 6;
+    private static final byte OTHER = 7;
 
     public List<Player> getPlayers() {
         return new ArrayList<>(players);
     }
 
+    /**
+     * Returns the players still in the game, in turn order, without copying. Callers
+     * must not modify the list.
+     */
+    List<Player> activePlayers() {
+        return players;
+    }
+
+    /**
+     * Returns true if {@code position} holds a property.
+     */
+    boolean isProperty(int position) {
+        return squareKinds[position] == PROPERTY;
+    }
+
     public void incrementRound() {
-        currentRound++;
+        state.round++;
     }
 
     public void moveToNextPlayer() {
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        state.currentPlayerIndex = (state.currentPlayerIndex + 1) % state.active;
     }
 
     public Game(List<String> playerNames) {
-        if (playerNames.size() < 2 || playerNames.size() > 6) {
-            throw new IllegalArgumentException("Must have 2-6 players");
-        }
-
-        this.players = new ArrayList<>();
-        for (String name : playerNames) {
-            players.add(new Player(name));
-        }
-
-        this.board = new Square[21];
-        initializeBoard();
-
-        this.dice1 = new Dice();
-        this.dice2 = new Dice();
-        this.currentPlayerIndex = 0;
-        this.currentRound = 0;
-    }
-
-    private void initializeBoard() {
-        board[1] = new GoSquare();
-        board[2] = new PropertySquare(2, "Central", 800, 90);
-        board[3] = new PropertySquare(3, "Wan Chai", 700, 65);
-        board[4] = new IncomeTaxSquare(4);
-        board[5] = new PropertySquare(5, "Stanley", 600, 60);
-        board[6] = new JailSquare();
-        board[7] = new PropertySquare(7, "Shek O", 400, 10);
-        board[8] = new PropertySquare(8, "Mong Kok", 500, 40);
-        board[9] = new ChanceSquare(9);
-        board[10] = new PropertySquare(10, "Tsing Yi", 400, 15);
-        board[11] = new FreeParkingSquare(11);
-        board[12] = new PropertySquare(12, "Shatin", 700, 75);
-        board[13] = new PropertySquare(13, "Tuen Mun", 400, 20);
-        board[14] = new PropertySquare(14, "Tai Po", 500, 25);
-        board[15] = new PropertySquare(15, "Sai Kung", 400, 10);
-        board[16] = new GoToJailSquare(16);
-        board[17] = new PropertySquare(17, "Yuen Long", 400, 25);
-        board[18] = new PropertySquare(18, "Tai O", 600, 25);
-        board[19] = new ChanceSquare(19);
-        board[20] = new PropertySquare(20, "Peak", 850, 100);
+        this(playerNames, new ConsoleStrategy(), ConsoleRenderer.console().events());
+    }
+
+    /**
+     * Creates a game whose buy and jail decisions come from {@code strategy} and whose
+     * output goes to {@code events}. Pass {@link GameEvents#NONE} for a headless game.
+     */
+    public Game(List<String> playerNames, PlayerStrategy strategy, GameEvents events) {
+        this(playerNames, strategy, events, new GameRandom());
+    }
+
+    /**
+     * Creates a game whose dice and chance cards all draw from {@code random}, so the
+     * same seed and the same decisions always replay the same game.
+     */
+    public Game(List<String> playerNames, PlayerStrategy strategy, GameEvents events, GameRandom random) {
+        this(GameBoard.standard(), requirePlayerCount(playerNames, 6), 0, 0, strategy, events, random);
+    }
+
+    /**
+     * Creates a game on a custom board of any size. Every square must be set, and such
+     * games allow up to {@link GameState#MAX_SEATS} players.
+     */
+    public Game(GameBoard board, List<String> playerNames, PlayerStrategy strategy, GameEvents events,
+                GameRandom random) {
+        this(board, requirePlayerCount(playerNames, GameState.MAX_SEATS), 0, 0, strategy, events, random);
+    }
+
+    /**
+     * Rebuilds a saved game. Player state and ownership are restored afterwards through
+     * {@link Player#restore} and {@link #setOwner}.
+     */
+    Game(GameBoard board, List<String> playerNames, int currentPlayerIndex, int currentRound, GameRandom random) {
+        this(board, playerNames, currentPlayerIndex, currentRound, new ConsoleStrategy(), ConsoleRenderer.console().events(), random);
+    }
+
+    Game(GameBoard gameBoard, List<String> playerNames, int currentPlayerIndex, int currentRound,
+         PlayerStrategy strategy, GameEvents events, GameRandom random) {
+        this.strategy = strategy;
+        this.events = events;
+        this.tally = GameMetrics.ENABLED ? new GameMetrics.Tally() : null;
+
+        BoardLayout layout = gameBoard.layout();
+        this.layout = layout;
+        this.boardSize = layout.size;
+        this.jailPosition = layout.jailPosition;
+        this.board = layout.squares;
+        this.squareKinds = layout.kinds;
+
+        this.state = new GameState(playerNames.size(), board.length, random);
+        this.seats = new Player[playerNames.size()];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat] = new Player(playerNames.get(seat), state, seat, events, tally);
+        }
+        this.players = new Roster();
+
+        this.dice1 = new Dice(random);
+        this.dice2 = new Dice(random);
+        state.currentPlayerIndex = currentPlayerIndex;
+        state.round = currentRound;
+    }
+
+    /**
+     * Copies {@code source} onto {@code state}, sharing its board layout.
+     */
+    private Game(Game source, GameState state, PlayerStrategy strategy, GameEvents events) {
+        this.strategy = strategy;
+        this.events = events;
+        // Forks are what-ifs, such as lookahead rollouts, and are not counted.
+        this.tally = null;
+        this.boardSize = source.boardSize;
+        this.jailPosition = source.jailPosition;
+        this.layout = source.layout;
+        this.board = source.board;
+        this.squareKinds = source.squareKinds;
+        this.state = state;
+        this.seats = new Player[source.seats.length];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat] = new Player(source.seats[seat].getName(), state, seat, events, null);
+        }
+        this.players = new Roster();
+        this.dice1 = new Dice(state.random);
+        this.dice2 = new Dice(state.random);
+    }
+
+    /**
+     * Returns an independent copy of this game: players, ownership, round, current
+     * player and the position of the random generator, so the copy rolls the same dice
+     * this game would. The board is shared rather than copied; the rest of the state is
+     * a few small arrays, so a fork costs well under a microsecond on the standard board.
+     */
+    public Game fork() {
+        return fork(strategy, events, null);
+    }
+
+    /**
+     * Returns a copy of this game that makes its decisions with {@code strategy}, reports
+     * to {@code events} and, unless {@code random} is null, rolls from {@code random}
+     * instead of continuing this game's sequence.
+     */
+    Game fork(PlayerStrategy strategy, GameEvents events, GameRandom random) {
+        GameState copy = random == null ? new GameState(state) : new GameState(state, random);
+        return new Game(this, copy, strategy, events);
+    }
+
+    /**
+     * The players still in the game, read from the turn order kept in {@link GameState}.
+     */
+    private final class Roster extends AbstractList<Player> {
+        @Override
+        public Player get(int index) {
+            if (index >= state.active) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + state.active);
+            }
+            return seats[state.order[index]];
+        }
+
+        @Override
+        public int size() {
+            return state.active;
+        }
+    }
+
+    private static List<String> requirePlayerCount(List<String> playerNames, int maxPlayers) {
+        if (playerNames.size() < 2 || playerNames.size() > maxPlayers) {
+            throw new IllegalArgumentException("Must have 2-" + maxPlayers + " players");
+        }
+        return playerNames;
+    }
+
+    static byte kindOf(Square square) {
+        if (square instanceof PropertySquare) return PROPERTY;
+        if (square instanceof GoSquare) return GO;
+        if (square instanceof ChanceSquare) return CHANCE;
+        if (square instanceof IncomeTaxSquare) return INCOME_TAX;
+        if (square instanceof JailSquare) return JAIL;
+        if (square instanceof GoToJailSquare) return GO_TO_JAIL;
+        if (square instanceof FreeParkingSquare) return FREE_PARKING;
+        return OTHER;
+    }
+
+    PlayerStrategy getStrategy() {
+        return strategy;
+    }
+
+    GameEvents getEvents() {
+        return events;
+    }
+
+    GameRandom getRandom() {
+        return state.random;
+    }
+
+    public int getCurrentRound() {
+        return state.round;
+    }
+
+    int getCurrentPlayerIndex() {
+        return state.currentPlayerIndex;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getJailPosition() {
+        return jailPosition;
+    }
+
+    Square getSquare(int position) {
+        return board[position];
+    }
+
+    GameState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the player in {@code seat}, including players who have retired.
+     */
+    Player getSeat(int seat) {
+        return seats[seat];
+    }
+
+    /**
+     * Returns the owner of the property at {@code position}, or null if nobody owns it.
+     */
+    public Player getOwner(int position) {
+        int seat = state.ownerBySquare[position];
+        return seat == GameState.NO_OWNER ? null : seats[seat];
+    }
+
+    public void setOwner(int position, Player owner) {
+        state.setOwner(position, owner == null ? GameState.NO_OWNER : owner.getSeat());
+    }
+
+    /**
+     * Returns the properties owned by {@code player}, in board order.
+     */
+    public List<PropertySquare> getProperties(Player player) {
+        List<PropertySquare> properties = new ArrayList<>(state.countOwned(player.getSeat()));
+        for (int position = state.nextOwned(player.getSeat(), 0); position >= 0;
+             position = state.nextOwned(player.getSeat(), position + 1)) {
+            properties.add((PropertySquare) board[position]);
+        }
+        return properties;
     }
 
     public void play() {
         while (!isGameOver()) {
-            currentRound++;
-            System.out.printf("%nRound %d%n", currentRound);
-
-            Iterator<Player> iterator = players.iterator();
-            while (iterator.hasNext()) {
-                Player player = iterator.next();
-                takeTurn(player);
-
-                if (player.getMoney() < 0) {
-                    System.out.printf("%s retires from the game%n", player.getName());
-
-                    for (Square square : board) {
-                        if (square instanceof PropertySquare) {
-                            PropertySquare property = (PropertySquare) square;
-                            property.setOwner(null);
-                        }
-                    }
-                    iterator.remove();
-                }
-            }
+            playRound();
         }
 
         announceWinner();
     }
 
+    /**
+     * Plays one full round: every remaining player takes a turn, and players who end
+     * their turn in debt retire.
+     */
+    public void playRound() {
+        int round = ++state.round;
+        events.roundStarted(round);
+        playTurnsFrom(0);
+    }
+
+    /**
+     * Completes the round in progress after {@code player} has moved: ends their turn
+     * as {@link #takeTurn} would, offering them houses or retiring them if they are in
+     * debt, then plays the turns of the players after them. Used to resume a fork taken
+     * during {@code player}'s turn.
+     */
+    void finishRound(Player player) {
+        int i = players.indexOf(player);
+        if (i < 0) {
+            return;
+        }
+        if (layout.groupCount > 0 && player.getMoney() >= 0) {
+            offerBuilding(player);
+        }
+        if (player.getMoney() < 0) {
+            retire(player);
+        } else {
+            i++;
+        }
+        playTurnsFrom(i);
+    }
+
+    private void playTurnsFrom(int i) {
+        while (i < players.size()) {
+            Player player = players.get(i);
+            takeTurn(player);
+
+            if (player.getMoney() < 0) {
+                retire(player);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Removes a bankrupt player from the game and returns their properties to the bank.
+     */
+    void retire(Player player) {
+        events.playerRetired(player);
+        removePlayer(player);
+    }
+
+    /**
+     * Takes {@code player} out of the turn order and releases their properties without
+     * announcing it, for rebuilding a game that has already announced it.
+     */
+    void removePlayer(Player player) {
+        state.releaseAll(player.getSeat());
+        state.removeFromOrder(player.getSeat());
+    }
+
+    /**
+     * Sets the round, the turn order position and the random generator, for rebuilding
+     * a game from a journal.
+     */
+    void restoreProgress(int currentRound, int currentPlayerIndex, long randomState) {
+        state.round = currentRound;
+        state.currentPlayerIndex = currentPlayerIndex;
+        state.random.setState(randomState);
+    }
+
+    /**
+     * Counts this game's turns, landings and rent for {@link GameMetrics}; null when
+     * metrics are off and for forks.
+     */
+    GameMetrics.Tally getTally() {
+        return tally;
+    }
+
+    /**
+     * Adds what this game has counted so far to {@link GameMetrics}. Games played to
+     * the end do this in {@link #announceWinner()}; call it before dropping a game
+     * that was not.
+     */
+    void flushMetrics() {
+        if (GameMetrics.ENABLED && tally != null) {
+            tally.flush();
+        }
+    }
+
     public void takeTurn(Player player) {
+        long start = GameMetrics.ENABLED && tally != null && tally.sampleTurn() ? System.nanoTime() : 0;
+        playTurn(player);
+        if (layout.groupCount > 0 && player.getMoney() >= 0) {
+            offerBuilding(player);
+        }
+        if (GameMetrics.ENABLED && start != 0) {
+            GameMetrics.TURN_LATENCY.record(System.nanoTime() - start);
+            tally.flush();
+        }
+    }
+
+    private void playTurn(Player player) {
         if (player.isInJail()) {
             handleJailTurn(player);
             return;
@@ -372,34 +667,164 @@ class Game implements Serializable {
         int roll2 = dice2.roll();
         int totalRoll = roll1 + roll2;
 
-        System.out.printf("%s rolled %d + %d = %d%n",
-                player.getName(), roll1, roll2, totalRoll);
+        events.rolled(player, roll1, roll2);
+
+        advance(player, totalRoll);
+    }
+
+    /**
+     * Returns the rent due on the owned property at {@code position}: the printed rent,
+     * doubled if the owner holds the whole group, or the rent for its houses.
+     */
+    int rentAt(int position) {
+        int level = state.houses[position];
+        if (level > 0) {
+            level++;
+        } else {
+            int group = layout.groupOf[position];
+            if (group >= 0 && ownsGroup(state.ownerBySquare[position], group)) {
+                level = BoardLayout.FULL_GROUP;
+            }
+        }
+        return layout.rents[position * BoardLayout.RENT_LEVELS + level];
+    }
 
-        int oldPosition = player.getPosition();
-        int newPosition = oldPosition + totalRoll;
+    /**
+     * Returns true if {@code seat} owns every property in colour group {@code group}.
+     */
+    boolean ownsGroup(int seat, int group) {
+        if (seat == GameState.NO_OWNER) {
+            return false;
+        }
+        for (int mask = layout.maskStart[group]; mask < layout.maskStart[group + 1]; mask++) {
+            if (!state.ownsAll(seat, layout.maskWord[mask], layout.maskBits[mask])) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // Handle passing Go
-        if (newPosition > 20) {
-            newPosition = newPosition - 20;
+    /**
+     * Returns the number of houses on {@code position}, or {@link BoardLayout#HOTEL}.
+     */
+    public int getHouses(int position) {
+        return state.houses[position];
+    }
+
+    /**
+     * Sets the buildings on {@code position}, for rebuilding a saved game.
+     */
+    void setHouses(int position, int houses) {
+        state.houses[position] = (byte) houses;
+    }
+
+    /**
+     * Returns the cost of a house on {@code position}, or 0 if it is in no colour group.
+     */
+    public int getHouseCost(int position) {
+        int group = layout.groupOf[position];
+        return group < 0 ? 0 : layout.houseCost[group];
+    }
+
+    /**
+     * At the end of {@code player}'s turn, offers them one house on every colour group
+     * they own outright and can afford to build on. Houses go up evenly: each goes on the
+     * property in the group with the fewest.
+     */
+    private void offerBuilding(Player player) {
+        int seat = player.getSeat();
+        for (int group = 0; group < layout.groupCount; group++) {
+            int cost = layout.houseCost[group];
+            if (player.getMoney() < cost || !ownsGroup(seat, group)) {
+                continue;
+            }
+            int position = leastBuilt(group);
+            if (position < 0) {
+                continue;
+            }
+            PropertySquare property = (PropertySquare) board[position];
+            if (strategy.buildHouse(player, property, this)) {
+                player.reduceMoney(cost);
+                int houses = ++state.houses[position];
+                events.houseBuilt(player, property, houses);
+            }
+        }
+    }
+
+    /**
+     * Returns the first property in {@code group} with the fewest houses, or -1 if every
+     * one has a hotel.
+     */
+    private int leastBuilt(int group) {
+        int least = -1;
+        for (int i = layout.groupStart[group]; i < layout.groupStart[group + 1]; i++) {
+            int position = layout.groupMembers[i];
+            if (state.houses[position] < BoardLayout.HOTEL
+                    && (least < 0 || state.houses[position] < state.houses[least])) {
+                least = position;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * Moves {@code player} forward and lands on the new square, collecting from Go when
+     * the move wraps around the board.
+     */
+    private void advance(Player player, int steps) {
+        int offset = player.getPosition() - 1 + steps;
+        if (offset >= boardSize) {
+            offset %= boardSize;
             board[1].passBy(player, this);
         }
+        player.setPosition(offset + 1);
+        landOn(offset + 1, player);
+    }
 
-        player.setPosition(newPosition);
-        board[newPosition].landOn(player, this);
+    /**
+     * Lands on the square at {@code position}. Each case calls a final class directly,
+     * so the JIT can inline the square's logic into the turn.
+     */
+    private void landOn(int position, Player player) {
+        Square square = board[position];
+        if (GameMetrics.ENABLED && tally != null) {
+            tally.landed(squareKinds[position]);
+        }
+        switch (squareKinds[position]) {
+            case PROPERTY:
+                ((PropertySquare) square).landOn(player, this);
+                break;
+            case GO:
+                ((GoSquare) square).landOn(player, this);
+                break;
+            case CHANCE:
+                ((ChanceSquare) square).landOn(player, this);
+                break;
+            case INCOME_TAX:
+                ((IncomeTaxSquare) square).landOn(player, this);
+                break;
+            case JAIL:
+                ((JailSquare) square).landOn(player, this);
+                break;
+            case GO_TO_JAIL:
+                ((GoToJailSquare) square).landOn(player, this);
+                break;
+            case FREE_PARKING:
+                ((FreeParkingSquare) square).landOn(player, this);
+                break;
+            default:
+                square.landOn(player, this);
+        }
     }
 
     private void handleJailTurn(Player player) {
-        System.out.printf("%s is in jail.%n", player.getName());
-
+        events.jailTurn(player);
 
         if (player.getMoney() >= 150 && player.isInJail()) {
-            System.out.printf("Do you want to pay $150 to get out of jail? (y/n): ");
-            Scanner scanner = new Scanner(System.in);
-            String choice = scanner.nextLine().trim().toLowerCase();
-            if (choice.equals("y")) {
+            if (strategy.payJailFine(player, this)) {
                 player.payJailFine();
                 if (!player.isInJail()) {
-                    takeTurn(player);
+                    playTurn(player);
                     return;
                 }
             }
@@ -408,70 +833,78 @@ class Game implements Serializable {
         int roll1 = dice1.roll();
         int roll2 = dice2.roll();
 
-        System.out.printf("%s rolled %d + %d%n",
-                player.getName(), roll1, roll2);
+        events.jailRolled(player, roll1, roll2);
 
         if (player.tryToGetOutOfJail(roll1, roll2)) {
-            if (roll1 == roll2) {
-                System.out.printf("%s got out of jail with doubles!%n",
-                        player.getName());
-            } else {
-                System.out.printf("%s got out of jail after three turns and paid $150%n",
-                        player.getName());
-            }
-            player.setPosition(player.getPosition() + roll1 + roll2);
-            board[player.getPosition()].landOn(player, this);
+            events.leftJail(player, roll1 == roll2);
+            advance(player, roll1 + roll2);
         } else {
-            System.out.printf("%s stays in jail%n", player.getName());
+            events.stayedInJail(player);
         }
     }
 
     public boolean isGameOver() {
-        return currentRound == MAX_ROUNDS || players.size() == 1;
+        return state.round == MAX_ROUNDS || state.active == 1;
     }
 
-    public void announceWinner() {
-        if (players.isEmpty()) {
-            System.out.println("Game over! No winners - everyone went bankrupt!");
-            return;
+    /**
+     * Returns the remaining players holding the most money; empty if everyone went bankrupt.
+     */
+    public List<Player> getWinners() {
+        List<Player> winners = new ArrayList<>();
+        int maxMoney = Integer.MIN_VALUE;
+        for (Player player : players) {
+            if (player.getMoney() > maxMoney) {
+                maxMoney = player.getMoney();
+                winners.clear();
+            }
+            if (player.getMoney() == maxMoney) {
+                winners.add(player);
+            }
         }
+        return winners;
+    }
 
-        int maxMoney = players.stream()
-                .mapToInt(Player::getMoney)
-                .max()
-                .getAsInt();
-
-        List<Player> winners = players.stream()
-                .filter(p -> p.getMoney() == maxMoney)
-                .toList();
-
-        if (winners.size() == 1) {
-            System.out.printf("Game over! %s wins with $%d%n",
-                    winners.get(0).getName(), maxMoney);
-        } else {
-            System.out.printf("Game over! It's a tie between: %s with $%d each%n",
-                    winners.stream().map(Player::getName).reduce((a, b) -> a + " and " + b).get(),
-                    maxMoney);
+    public void announceWinner() {
+        List<Player> winners = getWinners();
+        if (GameMetrics.ENABLED && tally != null) {
+            tally.flush();
+            GameMetrics.GAMES_FINISHED.increment();
         }
+        events.gameOver(winners, winners.isEmpty() ? 0 : winners.get(0).getMoney());
     }
 
     public String getGameStatus() {
         StringBuilder status = new StringBuilder();
-        status.append("Current Round: ").append(currentRound).append("\n");
-        status.append("Current Player: ").append(players.get(currentPlayerIndex).getName()).append("\n");
+        status.append("Current Round: ").append(state.round).append("\n");
+        status.append("Current Player: ").append(getCurrentPlayer().getName()).append("\n");
         status.append("Board Status:\n");
-        for (int i = 1; i < board.length; i++) {
-            status.append(String.format("%d. %s", i, board[i].getName()));
-            if (board[i] instanceof PropertySquare) {
-                PropertySquare property = (PropertySquare) board[i];
-                status.append(String.format(" (Owner: %s)",
-                        property.getOwner() != null ? property.getOwner().getName() : "None"));
+        for (int i = 1; i <= boardSize; i++) {
+            status.append(i).append(". ").append(board[i].getName());
+            if (squareKinds[i] == PROPERTY) {
+                Player owner = getOwner(i);
+                status.append(" (Owner: ").append(owner != null ? owner.getName() : "None").append(')');
+                appendHouses(status, state.houses[i]);
             }
             status.append("\n");
         }
         return status.toString();
     }
 
+    /**
+     * Appends the buildings on a property to its status line, if there are any.
+     */
+    static StringBuilder appendHouses(StringBuilder line, int houses) {
+        if (houses == BoardLayout.HOTEL) {
+            line.append(" - hotel");
+        } else if (houses == 1) {
+            line.append(" - 1 house");
+        } else if (houses > 1) {
+            line.append(" - ").append(houses).append(" houses");
+        }
+        return line;
+    }
+
     public String getAllPlayersStatus() {
         StringBuilder status = new StringBuilder();
         for (Player player : players) {
@@ -481,78 +914,251 @@ class Game implements Serializable {
     }
 
     public Player getNextPlayer() {
-        int nextPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        int nextPlayerIndex = (state.currentPlayerIndex + 1) % state.active;
         return players.get(nextPlayerIndex);
     }
 
     public Player getCurrentPlayer() {
-        return players.get(currentPlayerIndex);
+        return players.get(state.currentPlayerIndex);
     }
 
     public void saveGame(String fileName) throws IOException {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(fileName))) {
-            out.writeObject(this);
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        GameSnapshot.write(this, fileName);
+        if (GameMetrics.ENABLED) {
+            GameMetrics.saved(start);
         }
     }
 
+    /**
+     * Loads a game saved by {@link #saveGame}. Files written with Java serialization by
+     * earlier versions are still accepted and converted on load.
+     */
     public static Game loadGame(String fileName) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(fileName))) {
-            return (Game) in.readObject();
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        Game game = LegacySaves.isSerialized(fileName)
+                ? LegacySaves.loadGame(fileName) : GameSnapshot.read(fileName);
+        if (GameMetrics.ENABLED) {
+            GameMetrics.loaded(start);
         }
+        return game;
     }
 }
 
 class GameBoard implements Serializable {
+    private static final long serialVersionUID = 442719408230388621L;
+
+    static final int DEFAULT_SIZE = 20;
+    static final int DEFAULT_JAIL_POSITION = 11;
+    static final int MAX_SIZE = Short.MAX_VALUE;
+
     private Square[] squares;
+    private int jailPosition;
+    /**
+     * Each colour group as its house cost followed by its positions; null on boards
+     * saved before groups existed.
+     */
+    private List<int[]> groups;
+    private transient BoardLayout layout;
 
     public GameBoard() {
-        squares = new Square[21];
-        initializeDefaultBoard();
+        this(DEFAULT_SIZE);
     }
 
-    private void initializeDefaultBoard() {
+    public GameBoard(int size) {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 2 and " + MAX_SIZE);
+        }
+        squares = new Square[size + 1];
+        jailPosition = Math.min(DEFAULT_JAIL_POSITION, size);
+    }
 
+    /**
+     * Returns a new copy of the standard 20 square board, defined by
+     * {@link BoardSpec#STANDARD}. The copy starts out sharing the cached squares.
+     */
+    public static GameBoard standard() {
+        BoardLayout standard = BoardCache.standard();
+        GameBoard board = new GameBoard(standard.size);
+        System.arraycopy(standard.squares, 1, board.squares, 1, standard.size);
+        board.jailPosition = standard.jailPosition;
+        board.layout = standard;
+        return board;
     }
 
     public void setSquare(int position, Square square) {
-        if (position < 1 || position > 20) {
-            throw new IllegalArgumentException("Invalid position. Must be between 1 and 20.");
+        if (position < 1 || position > getSize()) {
+            throw new IllegalArgumentException("Invalid position. Must be between 1 and " + getSize() + ".");
         }
         squares[position] = square;
+        layout = null;
     }
 
     public Square getSquare(int position) {
         return squares[position];
     }
 
+    public int getSize() {
+        return squares.length - 1;
+    }
+
+    /**
+     * Returns where a player sent to jail by a {@link GoToJailSquare} is placed.
+     */
+    public int getJailPosition() {
+        return jailPosition;
+    }
+
+    public void setJailPosition(int jailPosition) {
+        if (jailPosition < 1 || jailPosition > getSize()) {
+            throw new IllegalArgumentException("Invalid position. Must be between 1 and " + getSize() + ".");
+        }
+        this.jailPosition = jailPosition;
+        layout = null;
+    }
+
+    /**
+     * Makes the properties at {@code positions} a colour group whose houses cost
+     * {@code houseCost} each. Owning a whole group doubles its rent and lets the owner
+     * build; a property belongs to at most one group.
+     */
+    public void addGroup(int houseCost, int... positions) {
+        if (positions.length == 0 || houseCost < 0) {
+            throw new IllegalArgumentException("A group needs at least one position and a house cost of 0 or more");
+        }
+        int[] group = new int[positions.length + 1];
+        group[0] = houseCost;
+        for (int i = 0; i < positions.length; i++) {
+            int position = positions[i];
+            if (position < 1 || position > getSize()) {
+                throw new IllegalArgumentException("Invalid position. Must be between 1 and " + getSize() + ".");
+            }
+            for (int g = 0; g < getGroupCount(); g++) {
+                for (int p : getGroup(g)) {
+                    if (p == position) {
+                        throw new IllegalArgumentException("Position " + position + " is already in a group");
+                    }
+                }
+            }
+            for (int j = 0; j < i; j++) {
+                if (positions[j] == position) {
+                    throw new IllegalArgumentException("Position " + position + " is listed twice");
+                }
+            }
+            group[i + 1] = position;
+        }
+        if (groups == null) {
+            groups = new ArrayList<>();
+        }
+        groups.add(group);
+        layout = null;
+    }
+
+    public int getGroupCount() {
+        return groups == null ? 0 : groups.size();
+    }
+
+    /**
+     * Returns the positions in group {@code group}.
+     */
+    public int[] getGroup(int group) {
+        int[] entry = groups.get(group);
+        return Arrays.copyOfRange(entry, 1, entry.length);
+    }
+
+    public int getHouseCost(int group) {
+        return groups.get(group)[0];
+    }
+
+    /**
+     * Returns the checked, shared layout that games on this board play on. Boards with
+     * the same squares and jail position get the same layout from {@link BoardCache}.
+     *
+     * @throws IllegalArgumentException if a square is unset or a property is misplaced
+     */
+    BoardLayout layout() {
+        BoardLayout current = layout;
+        if (current == null) {
+            current = BoardCache.intern(this);
+            layout = current;
+        }
+        return current;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (jailPosition == 0) {
+            // Boards saved before the jail position was configurable.
+            jailPosition = Math.min(DEFAULT_JAIL_POSITION, getSize());
+        }
+    }
+
+    /**
+     * Saves the board in the text form of {@link BoardSpec}.
+     */
     public void saveBoard(String fileName) throws IOException {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(fileName))) {
-            out.writeObject(this);
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8")) {
+            out.write(BoardSpec.format(this));
         }
     }
 
+    /**
+     * Loads a board in the text or binary form of {@link BoardSpec}. Boards saved with
+     * Java serialization by earlier versions are still accepted.
+     */
     public static GameBoard loadBoard(String fileName) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(fileName))) {
-            return (GameBoard) in.readObject();
+        byte[] bytes;
+        try (InputStream in = new FileInputStream(fileName)) {
+            bytes = in.readAllBytes();
+        }
+        if (BoardSpec.isBinary(bytes)) {
+            return BoardSpec.fromBytes(bytes);
         }
+        int magic = bytes.length >= 2 ? (bytes[0] & 0xFF) << 8 | bytes[1] & 0xFF : 0;
+        if (magic == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF)) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (GameBoard) in.readObject();
+            }
+        }
+        return BoardSpec.parse(new String(bytes, "UTF-8"));
     }
 }
 
 public class MonopolyGame {
-    private static Scanner scanner = new Scanner(System.in);
+    /**
+     * Runs the console game. With a file name, the answers to every prompt are read
+     * from that script instead of the keyboard, and the program exits when it ends.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            GameInput.setConsole(GameInput.fromFile(args[0]));
+        }
+        try {
+            runMenu();
+        } catch (NoSuchElementException e) {
+            out().println();
+        }
+    }
 
-    public static void main(String[] args) {
+    private static GameInput input() {
+        return GameInput.console();
+    }
+
+    private static PrintStream out() {
+        return ConsoleRenderer.console().out();
+    }
+
+    private static void runMenu() {
         while (true) {
-            System.out.println("Monopoly Game Menu:");
-            System.out.println("1. Start New Game");
-            System.out.println("2. Load Game");
-            System.out.println("3. Design New Board");
-            System.out.println("4. Customize Existing Board");
-            System.out.println("5. Exit");
-            System.out.print("Enter your choice: ");
+            out().println("Monopoly Game Menu:");
+            out().println("1. Start New Game");
+            out().println("2. Load Game");
+            out().println("3. Design New Board");
+            out().println("4. Customize Existing Board");
+            out().println("5. Exit");
+            out().print("Enter your choice: ");
 
-            int choice = scanner.nextInt();
-            scanner.nextLine();
+            int choice = input().readInt();
 
             switch (choice) {
                 case 1:
@@ -568,23 +1174,22 @@ public class MonopolyGame {
                     customizeExistingBoard();
                     break;
                 case 5:
-                    System.out.println("Thank you for playing!");
+                    out().println("Thank you for playing!");
                     return;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out().println("Invalid choice. Please try again.");
             }
         }
     }
 
     private static void startNewGame() {
-        System.out.print("Enter the number of players: ");
-        int numPlayers = scanner.nextInt();
-        scanner.nextLine();
+        out().print("Enter the number of players: ");
+        int numPlayers = input().readInt();
 
         List<String> playerNames = new ArrayList<>();
         for (int i = 0; i < numPlayers; i++) {
-            System.out.printf("Enter name for Player %d (or press Enter for random name): ", i + 1);
-            String name = scanner.nextLine().trim();
+            out().printf("Enter name for Player %d (or press Enter for random name): ", i + 1);
+            String name = input().readLine().trim();
             if (name.isEmpty()) {
                 name = generateRandomName();
             }
@@ -596,29 +1201,29 @@ public class MonopolyGame {
     }
 
     private static void loadGame() {
-        System.out.print("Enter the filename to load the game from: ");
-        String fileName = scanner.nextLine();
+        out().print("Enter the filename to load the game from: ");
+        String fileName = input().readLine();
         try {
             Game game = Game.loadGame(fileName);
-            System.out.println("Game loaded successfully!");
+            out().println("Game loaded successfully!");
             playGame(game);
         } catch (IOException | ClassNotFoundException e) {
-            System.out.println("Error loading game: " + e.getMessage());
+            out().println("Error loading game: " + e.getMessage());
         }
     }
 
     private static void playGame(Game game) {
+        StatusView status = new StatusView(game);
         while (!game.isGameOver()) {
-            System.out.println("\n" + game.getGameStatus());
-            System.out.println("1. Roll Dice");
-            System.out.println("2. View All Players Status");
-            System.out.println("3. View Next Player");
-            System.out.println("4. Save Game");
-            System.out.println("5. Exit to Main Menu");
-            System.out.print("Enter your choice: ");
+            out().println("\n" + status.getGameStatus());
+            out().println("1. Roll Dice");
+            out().println("2. View All Players Status");
+            out().println("3. View Next Player");
+            out().println("4. Save Game");
+            out().println("5. Exit to Main Menu");
+            out().print("Enter your choice: ");
 
-            int choice = scanner.nextInt();
-            scanner.nextLine();
+            int choice = input().readInt();
 
             switch (choice) {
                 case 1:
@@ -629,25 +1234,26 @@ public class MonopolyGame {
                     }
                     break;
                 case 2:
-                    System.out.println(game.getAllPlayersStatus());
+                    out().println(status.getAllPlayersStatus());
                     break;
                 case 3:
-                    System.out.println("Next player: " + game.getNextPlayer().getName());
+                    out().println("Next player: " + game.getNextPlayer().getName());
                     break;
                 case 4:
-                    System.out.print("Enter filename to save the game: ");
-                    String saveFileName = scanner.nextLine();
+                    out().print("Enter filename to save the game: ");
+                    String saveFileName = input().readLine();
                     try {
                         game.saveGame(saveFileName);
-                        System.out.println("Game saved successfully!");
+                        out().println("Game saved successfully!");
                     } catch (IOException e) {
-                        System.out.println("Error saving game: " + e.getMessage());
+                        out().println("Error saving game: " + e.getMessage());
                     }
                     break;
                 case 5:
+                    game.flushMetrics();
                     return;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out().println("Invalid choice. Please try again.");
             }
         }
         game.announceWinner();
@@ -659,78 +1265,75 @@ public class MonopolyGame {
     }
 
     private static void customizeExistingBoard() {
-        System.out.print("Enter the filename of the board to load: ");
-        String fileName = scanner.nextLine();
+        out().print("Enter the filename of the board to load: ");
+        String fileName = input().readLine();
         try {
             GameBoard board = GameBoard.loadBoard(fileName);
-            System.out.println("Board loaded successfully!");
+            out().println("Board loaded successfully!");
             customizeBoard(board);
         } catch (IOException | ClassNotFoundException e) {
-            System.out.println("Error loading board: " + e.getMessage());
+            out().println("Error loading board: " + e.getMessage());
         }
     }
 
     private static void customizeBoard(GameBoard board) {
         while (true) {
-            System.out.println("\nBoard Customization:");
-            System.out.println("1. Modify Square");
-            System.out.println("2. Save Board");
-            System.out.println("3. Exit to Main Menu");
-            System.out.print("Enter your choice: ");
+            out().println("\nBoard Customization:");
+            out().println("1. Modify Square");
+            out().println("2. Save Board");
+            out().println("3. Exit to Main Menu");
+            out().print("Enter your choice: ");
 
-            int choice = scanner.nextInt();
-            scanner.nextLine();
+            int choice = input().readInt();
 
             switch (choice) {
                 case 1:
                     modifySquare(board);
                     break;
                 case 2:
-                    System.out.print("Enter filename to save the board: ");
-                    String saveFileName = scanner.nextLine();
+                    out().print("Enter filename to save the board: ");
+                    String saveFileName = input().readLine();
                     try {
                         board.saveBoard(saveFileName);
-                        System.out.println("Board saved successfully!");
+                        out().println("Board saved successfully!");
                     } catch (IOException e) {
-                        System.out.println("Error saving board: " + e.getMessage());
+                        out().println("Error saving board: " + e.getMessage());
                     }
                     break;
                 case 3:
                     return;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out().println("Invalid choice. Please try again.");
             }
         }
     }
 
     private static void modifySquare(GameBoard board) {
-        System.out.print("Enter the position of the square to modify (1-20): ");
-        int position = scanner.nextInt();
-        scanner.nextLine();
-
-        System.out.print("Enter the new name for the square: ");
-        String name = scanner.nextLine();
-
-        System.out.println("Select the type of square:");
-        System.out.println("1. Property");
-        System.out.println("2. Go");
-        System.out.println("3. Chance");
-        System.out.println("4. Income Tax");
-        System.out.println("5. Jail");
-        System.out.println("6. Go to Jail");
-        System.out.println("7. Free Parking");
-        System.out.print("Enter your choice: ");
-
-        int typeChoice = scanner.nextInt();
-        scanner.nextLine();
+        out().printf("Enter the position of the square to modify (1-%d): ", board.getSize());
+        int position = input().readInt();
+
+        out().print("Enter the new name for the square: ");
+        String name = input().readLine();
+
+        out().println("Select the type of square:");
+        out().println("1. Property");
+        out().println("2. Go");
+        out().println("3. Chance");
+        out().println("4. Income Tax");
+        out().println("5. Jail");
+        out().println("6. Go to Jail");
+        out().println("7. Free Parking");
+        out().print("Enter your choice: ");
+
+        int typeChoice = input().readInt();
 
         Square newSquare;
         switch (typeChoice) {
             case 1:
-                System.out.print("Enter property price: ");
-                int price = scanner.nextInt();
-                System.out.print("Enter property rent: ");
-                int rent = scanner.nextInt();
+                out().print("Enter property price: ");
+                int price = input().readInt();
+                out().print("Enter property rent: ");
+                int rent = input().readInt();
                 newSquare = new PropertySquare(position, name, price, rent);
                 break;
             case 2:
@@ -752,12 +1355,12 @@ public class MonopolyGame {
                 newSquare = new FreeParkingSquare(position);
                 break;
             default:
-                System.out.println("Invalid choice. Square not modified.");
+                out().println("Invalid choice. Square not modified.");
                 return;
         }
 
         board.setSquare(position, newSquare);
-        System.out.println("Square modified successfully!");
+        out().println("Square modified successfully!");
     }
 
     private static String generateRandomName() {
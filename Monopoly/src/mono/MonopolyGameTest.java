@@ -1,10 +1,27 @@
 package mono;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 class MonopolyGameTest {
 
@@ -105,6 +122,39 @@ class MonopolyGameTest {
         assertEquals(newProperty, board.getSquare(5));
     }
 
+    @Test
+    void testBoardSpecRoundTripsAndGamesShareOneLayout() throws Exception {
+        GameBoard standard = GameBoard.standard();
+        GameBoard parsed = BoardSpec.parse(BoardSpec.format(standard));
+        assertArrayEquals(BoardSpec.toBytes(standard), BoardSpec.toBytes(parsed));
+        assertArrayEquals(BoardSpec.toBytes(standard), BoardSpec.toBytes(BoardSpec.fromBytes(BoardSpec.toBytes(parsed))));
+        assertSame(standard.layout(), parsed.layout());
+
+        Game other = new Game(Arrays.asList("A", "B"));
+        assertSame(game.getSquare(2), other.getSquare(2));
+
+        GameBoard custom = BoardSpec.parse("size 4\n# comment\n1 go\n2,4 property 100 10 Lot\n3 gotojail\njail 2\n");
+        assertEquals("Lot", custom.getSquare(4).getName());
+        assertEquals(4, custom.getSquare(4).getPosition());
+        assertEquals(2, custom.getJailPosition());
+        assertThrows(IOException.class, () -> BoardSpec.parse("size 4\n5 go\n"));
+        assertThrows(IOException.class, () -> BoardSpec.parse("size 4\n1 hotel\n"));
+
+        File text = File.createTempFile("board", ".txt");
+        File legacy = File.createTempFile("board", ".ser");
+        try {
+            custom.saveBoard(text.getPath());
+            assertSame(custom.layout(), GameBoard.loadBoard(text.getPath()).layout());
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacy))) {
+                out.writeObject(custom);
+            }
+            assertSame(custom.layout(), GameBoard.loadBoard(legacy.getPath()).layout());
+        } finally {
+            text.delete();
+            legacy.delete();
+        }
+    }
+
 
     @Test
     void testFullGameTurn() {
@@ -116,4 +166,821 @@ class MonopolyGameTest {
         assertNotEquals(initialPosition, player1.getPosition());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testHeadlessGamePlaysToCompletion() {
+        Game headless = new Game(Arrays.asList("Player1", "Player2", "Player3"),
+                new AlwaysBuyStrategy(), GameEvents.NONE);
+        headless.play();
+        assertTrue(headless.isGameOver());
+        assertTrue(headless.getWinners().size() <= headless.getPlayers().size());
+    }
+
+    @Test
+    void testConsoleEventsKeepInteractiveWording() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConsoleEvents events = new ConsoleEvents(new PrintStream(output));
+        events.rentPaid(player1, player2, 90);
+        events.chance(player1, -30);
+        assertEquals(String.format("Player1 pays $90 rent to Player2%nPlayer1 loses $30 from Chance%n"),
+                output.toString());
+    }
+
+    @Test
+    void testEventRingReplaysConsoleWording() {
+        List<String> names = Arrays.asList("Player1", "Player2", "Player3");
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        new Game(names, new AlwaysBuyStrategy(), new ConsoleEvents(new PrintStream(direct)), new GameRandom(3)).play();
+
+        ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        EventRing ring = new EventRing(64);
+        EventAggregator aggregator = new EventAggregator();
+        Game game = new Game(names, new AlwaysBuyStrategy(), ring, new GameRandom(3));
+        ring.addConsumer(new EventDispatcher(game, new ConsoleEvents(new PrintStream(replayed))));
+        ring.addConsumer(aggregator);
+        game.play();
+
+        assertEquals(direct.toString(), replayed.toString());
+        assertEquals(1, aggregator.getCount(EventType.GAME_OVER));
+        assertEquals(EventRing.encode(EventType.CHANCE, 2, 0, -300) >>> 58, EventType.CHANCE.ordinal());
+        assertEquals(-300, EventRing.b(EventRing.encode(EventType.CHANCE, 2, 0, -300)));
+    }
+
+    @Test
+    void testRecordingSeeksToAnyRound() throws IOException {
+        PlayerStrategy coinFlip = new PlayerStrategy() {
+            private final GameRandom random = new GameRandom(99);
+
+            public boolean buyProperty(Player player, PropertySquare property, Game game) {
+                return random.nextBoolean();
+            }
+
+            public boolean payJailFine(Player player, Game game) {
+                return random.nextBoolean();
+            }
+        };
+        GameRecording recording = GameRecording.record(GameBoard.standard(), Arrays.asList("A", "B", "C", "D"),
+                coinFlip, GameEvents.NONE, 12345L, 7);
+        File file = File.createTempFile("monopoly", ".rec");
+        file.deleteOnExit();
+        recording.write(file.getPath());
+        GameRecording loaded = GameRecording.read(file.getPath());
+
+        Game fromStart = recording.seek(0);
+        for (int round = 0; round <= recording.getFinalRound(); round++) {
+            if (round > 0) {
+                fromStart.playRound();
+            }
+            Game sought = loaded.seek(round);
+            assertEquals(fromStart.getGameStatus(), sought.getGameStatus());
+            assertEquals(fromStart.getAllPlayersStatus(), sought.getAllPlayersStatus());
+        }
+    }
+
+    @Test
+    void testRecordingRefusesAnotherBoardAndCorruptCounts(@TempDir Path directory) throws IOException {
+        GameRecording recording = GameRecording.record(Arrays.asList("A", "B"), new AlwaysBuyStrategy(), 7L);
+        Path file = directory.resolve("game.rec");
+        recording.write(file.toString());
+        GameBoard grouped = BoardSpec.parse(BoardSpec.STANDARD + "group 2,3 100\n");
+        IOException mismatch = assertThrows(IOException.class, () -> GameRecording.read(file.toString(), grouped));
+        assertTrue(mismatch.getMessage().contains("different board"));
+        assertEquals(recording.getFinalRound(), GameRecording.read(file.toString()).getFinalRound());
+
+        byte[] bytes = Files.readAllBytes(file);
+        int[][] corruptions = {{25, 0}, {27, 0}, {28, 0x80}, {34, 0x80}};
+        for (int[] corruption : corruptions) {
+            byte[] corrupt = bytes.clone();
+            corrupt[corruption[0]] = (byte) corruption[1];
+            Path corruptFile = directory.resolve("corrupt" + corruption[0] + ".rec");
+            Files.write(corruptFile, corrupt);
+            IOException e = assertThrows(IOException.class, () -> GameRecording.read(corruptFile.toString()),
+                    "offset " + corruption[0]);
+            assertTrue(e.getMessage().startsWith("Corrupt recording"), e.getMessage());
+        }
+    }
+
+    @Test
+    void testStrategyMatrixWinRatesAreComplementary() {
+        Map<String, PlayerStrategy> bots = new LinkedHashMap<>();
+        bots.put("always", new AlwaysBuyStrategy());
+        bots.put("never", new CashThresholdStrategy(Integer.MAX_VALUE));
+        bots.put("ev", new ExpectedValueStrategy(GameBoard.standard()));
+        double[][] winRates = new StrategyMatrix(bots).run(500, 5L);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(1.0, winRates[i][j] + winRates[j][i], 1e-9);
+            }
+        }
+
+        Game game = new Game(Arrays.asList("Buyer", "Saver"),
+                new PerSeatStrategy(new AlwaysBuyStrategy(), new CashThresholdStrategy(Integer.MAX_VALUE)),
+                GameEvents.NONE, new GameRandom(8));
+        game.play();
+        assertTrue(game.getProperties(game.getSeat(1)).isEmpty());
+    }
+
+    @Test
+    void testGameSessionWaitsForDecisionsWithoutRepeatingOutput() {
+        GameSession session = new GameSession();
+        StringBuilder transcript = new StringBuilder(session.greeting());
+        String reply = session.handle("Ann, Ben");
+        int bought = 0, declined = 0, rolls = 0;
+        while (!session.isClosed()) {
+            transcript.append(reply);
+            if (reply.endsWith("Do you want to buy? (y/n): ")) {
+                boolean buy = (bought + declined) % 2 == 0;
+                if (buy) bought++; else declined++;
+                reply = session.handle("maybe");
+                assertTrue(reply.startsWith("Invalid input!"));
+                reply = session.handle(buy ? "y" : "n");
+            } else if (reply.endsWith("(y/n): ")) {
+                reply = session.handle("n");
+            } else {
+                assertTrue(reply.endsWith("Enter your choice: "));
+                rolls++;
+                reply = session.handle("1");
+            }
+        }
+        transcript.append(reply);
+        String text = transcript.toString();
+        assertEquals(bought, text.split(" bought ", -1).length - 1);
+        assertEquals(declined, text.split(" chose not to buy ", -1).length - 1);
+        assertEquals(1, text.split("Game over!", -1).length - 1);
+        assertTrue(rolls >= 200);
+    }
+
+    @Test
+    void testGameSessionAsksBeforeBuildingOnGroupedBoards() throws IOException {
+        GameBoard board = BoardSpec.parse(BoardSpec.STANDARD + "group 2 100\ngroup 3 100\ngroup 12 50\n");
+        GameSession session = new GameSession(board, new GameSession.Output());
+        String reply = session.handle("Ann, Ben");
+        int offers = 0, built = 0, rolls = 0;
+        StringBuilder transcript = new StringBuilder();
+        while (!session.isClosed() && rolls < 300) {
+            transcript.append(reply);
+            if (reply.endsWith("Do you want to build? (y/n): ")) {
+                assertTrue(session.isWaitingToBuild());
+                assertFalse(session.isWaitingToBuy() || session.isWaitingToPayFine());
+                boolean build = offers++ % 2 == 0;
+                if (build) built++;
+                reply = session.handle(build ? "y" : "n");
+            } else if (reply.endsWith("(y/n): ")) {
+                reply = session.handle("y");
+            } else {
+                rolls++;
+                reply = session.handle("1");
+            }
+        }
+        transcript.append(reply);
+        String text = transcript.toString();
+        assertTrue(offers > 0);
+        assertEquals(built, text.split(" built a ", -1).length - 1);
+    }
+
+    @Test
+    void testGameActorAppliesCommandsFromManyThreads() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            GameActor actor = new GameActor(Arrays.asList("Ann", "Ben", "Cat"), pool);
+            List<Future<?>> clients = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                clients.add(pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        actor.roll();
+                        actor.buy(i % 2 == 0);
+                        actor.payJailFine(true);
+                        actor.getStatus().getGameStatus();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+            String queried = actor.queryStatus().get();
+            GameActor.Status status = actor.getStatus();
+            assertEquals(601, status.getVersion());
+            assertEquals(status.getGameStatus() + "\n" + status.getAllPlayersStatus(), queried);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStatusViewMatchesGameStatusAsTheGameChanges() {
+        Game game = new Game(Arrays.asList("Ann", "B\"en", "Cat"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(21));
+        StatusView view = new StatusView(game);
+        while (!game.isGameOver()) {
+            game.playRound();
+            assertEquals(game.getGameStatus(), view.getGameStatus());
+            assertEquals(game.getAllPlayersStatus(), view.getAllPlayersStatus());
+        }
+        String json = view.toJson();
+        assertTrue(json.startsWith("{\"round\":" + game.getCurrentRound() + ",\"currentPlayer\":"));
+        assertTrue(json.contains("{\"position\":1,\"name\":\"Go\"}"));
+        assertTrue(json.contains("\"name\":\"B\\\"en\""));
+        assertTrue(json.endsWith("]}"));
+    }
+
+    @Test
+    void testJournalRecoversEveryTableAfterACrash(@TempDir File directory) throws IOException {
+        GameJournal journal = GameJournal.open(directory.getPath(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                GameEvents.NONE, 7, 4096, Long.MAX_VALUE);
+        List<Game> games = new ArrayList<>();
+        List<JournaledGame> tables = new ArrayList<>();
+        for (int table = 0; table < 5; table++) {
+            Game game = new Game(Arrays.asList("Ann", "Ben", "Cat", "Dan"), new AlwaysBuyStrategy(),
+                    GameEvents.NONE, new GameRandom(table));
+            games.add(game);
+            tables.add(journal.track(table, game));
+        }
+        for (int round = 0; round < 60; round++) {
+            for (int table = 0; table < 5; table++) {
+                if (!games.get(table).isGameOver()) {
+                    games.get(table).playRound();
+                    tables.get(table).recordTurn();
+                }
+            }
+            journal.commit();
+        }
+        // Leave a torn record at the end of the journal, as a crash mid-write would.
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".wal"));
+        Arrays.sort(segments);
+        try (FileOutputStream out = new FileOutputStream(segments[segments.length - 1], true)) {
+            out.write(new byte[] {0, 0, 0, 1, 0, 0});
+        }
+
+        GameJournal recovered = GameJournal.open(directory.getPath(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                GameEvents.NONE, 7, 4096, Long.MAX_VALUE);
+        assertEquals(5, recovered.getTables().size());
+        for (int table = 0; table < 5; table++) {
+            Game game = recovered.getTables().get(table).getGame();
+            assertEquals(games.get(table).getGameStatus(), game.getGameStatus());
+            assertEquals(games.get(table).getAllPlayersStatus(), game.getAllPlayersStatus());
+            game.playRound();
+            games.get(table).playRound();
+            assertEquals(games.get(table).getAllPlayersStatus(), game.getAllPlayersStatus());
+        }
+        recovered.close();
+    }
+
+    @Test
+    void testJournalRecoversTheNewGameOfAReusedTable(@TempDir File directory) throws IOException {
+        GameJournal journal = GameJournal.open(directory.getPath(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                GameEvents.NONE, 100, 1024, Long.MAX_VALUE);
+        List<String> names = Arrays.asList("Ann", "Ben", "Cat");
+        Game first = new Game(names, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(1));
+        JournaledGame table = journal.track(3, first);
+        for (int round = 0; round < 30 && !first.isGameOver(); round++) {
+            first.playRound();
+            table.recordTurn();
+        }
+        journal.commit();
+        table.finish();
+
+        Game second = new Game(names, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(2));
+        table = journal.track(3, second);
+        for (int round = 0; round < 5; round++) {
+            second.playRound();
+            table.recordTurn();
+        }
+        journal.commit();
+
+        GameJournal recovered = GameJournal.open(directory.getPath(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                GameEvents.NONE, 100, 1024, Long.MAX_VALUE);
+        Game game = recovered.getTables().get(3).getGame();
+        assertEquals(second.getGameStatus(), game.getGameStatus());
+        assertEquals(second.getAllPlayersStatus(), game.getAllPlayersStatus());
+        recovered.close();
+    }
+
+    @Test
+    void testJournalStopsAtAMissingOrCorruptRecord(@TempDir Path directory) throws IOException {
+        for (boolean corrupt : new boolean[] {false, true}) {
+            Path path = directory.resolve(corrupt ? "corrupt" : "missing");
+            GameJournal journal = GameJournal.open(path.toString(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                    GameEvents.NONE, 100, 300, Long.MAX_VALUE);
+            Game game = new Game(Arrays.asList("Ann", "Ben"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                    new GameRandom(4));
+            JournaledGame table = journal.track(0, game);
+            List<String> statuses = new ArrayList<>();
+            statuses.add(game.getGameStatus() + game.getAllPlayersStatus());
+            for (int round = 0; round < 30 && !game.isGameOver(); round++) {
+                game.playRound();
+                table.recordTurn();
+                statuses.add(game.getGameStatus() + game.getAllPlayersStatus());
+                journal.commit();
+            }
+            File[] segments = path.toFile().listFiles((dir, name) -> name.endsWith(".wal"));
+            Arrays.sort(segments);
+            assertTrue(segments.length >= 3);
+            if (corrupt) {
+                byte[] bytes = Files.readAllBytes(segments[1].toPath());
+                bytes[20] ^= 1;
+                Files.write(segments[1].toPath(), bytes);
+            } else {
+                Files.delete(segments[1].toPath());
+            }
+
+            GameJournal recovered = GameJournal.open(path.toString(), GameBoard.standard(), new AlwaysBuyStrategy(),
+                    GameEvents.NONE, 100, 300, Long.MAX_VALUE);
+            JournaledGame restored = recovered.getTables().get(0);
+            int sequence = (int) restored.getSequence();
+            assertTrue(sequence > 0 && sequence < statuses.size() - 1, "stopped at " + sequence);
+            Game recoveredGame = restored.getGame();
+            assertEquals(statuses.get(sequence), recoveredGame.getGameStatus() + recoveredGame.getAllPlayersStatus());
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testGameArchiveFindsEveryGameOfAParallelRun() throws IOException {
+        File file = File.createTempFile("monopoly", ".arc");
+        file.deleteOnExit();
+        List<String> names = Arrays.asList("A", "B", "C");
+        Simulation simulation = new Simulation(names, new AlwaysBuyStrategy());
+        try (GameArchive.Writer writer = GameArchive.create(file.getPath(), 42L, 3, GameBoard.DEFAULT_SIZE)) {
+            new Tournament(simulation, 42L).archiveTo(writer).run(3000);
+        }
+
+        try (GameArchive archive = GameArchive.open(file.getPath())) {
+            assertEquals(3000, archive.size());
+            assertEquals(-1, archive.find(3000));
+            for (long i = 0; i < 3000; i += 97) {
+                long record = archive.find(i);
+                Game game = new Game(names, new AlwaysBuyStrategy(), GameEvents.NONE, GameRandom.forGame(42L, i));
+                List<Player> seats = game.getPlayers();
+                game.play();
+                assertEquals(GameRandom.forGame(42L, i).getState(), archive.getSeed(record));
+                assertEquals(game.getCurrentRound(), archive.getRounds(record));
+                List<Player> winners = game.getWinners();
+                assertEquals(winners.size() == 1 ? seats.indexOf(winners.get(0)) : -1, archive.getWinner(record));
+                for (int seat = 0; seat < 3; seat++) {
+                    assertEquals(seats.get(seat).getMoney(), archive.getMoney(record, seat));
+                }
+                Player peakOwner = game.getOwner(20);
+                assertEquals(peakOwner == null ? -1 : seats.indexOf(peakOwner), archive.getOwner(record, 20));
+            }
+            double peak = archive.winRateOfOwner(20);
+            assertTrue(peak > 0 && peak < 1);
+        }
+    }
+
+    @Test
+    void testTournamentIsReproducibleFromMasterSeed() {
+        Simulation simulation = new Simulation(Arrays.asList("A", "B", "C"), new AlwaysBuyStrategy());
+        SimulationResult sequential = simulation.run(0, 2000, 42L);
+        SimulationResult parallel = new Tournament(simulation, 42L).run(2000);
+        for (int seat = 0; seat < 3; seat++) {
+            assertEquals(sequential.getWins(seat), parallel.getWins(seat));
+            assertEquals(sequential.getAverageFinalCash(seat), parallel.getAverageFinalCash(seat), 0.0);
+        }
+        assertEquals(sequential.getTies(), parallel.getTies());
+    }
+
+    @Test
+    void testSaveAndLoadGame() throws IOException, ClassNotFoundException {
+        Game game = new Game(Arrays.asList("Player1", "Player2", "Player3"),
+                new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(7));
+        for (int turn = 0; turn < 20; turn++) {
+            game.takeTurn(game.getCurrentPlayer());
+            game.moveToNextPlayer();
+        }
+        File file = File.createTempFile("monopoly", ".sav");
+        file.deleteOnExit();
+
+        game.saveGame(file.getPath());
+        Game loaded = Game.loadGame(file.getPath());
+
+        assertEquals(game.getGameStatus(), loaded.getGameStatus());
+        assertEquals(game.getAllPlayersStatus(), loaded.getAllPlayersStatus());
+    }
+
+    @Test
+    void testCorruptSnapshotsFailWithIOException() throws IOException {
+        Game game = new Game(Arrays.asList("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(1));
+        game.setOwner(2, game.getSeat(1));
+        byte[] valid = GameSnapshot.toBytes(game);
+        assertEquals(game.getAllPlayersStatus(), GameSnapshot.fromBytes(valid, GameBoard.standard(),
+                new AlwaysBuyStrategy(), GameEvents.NONE).getAllPlayersStatus());
+
+        // Offsets into the version 3 layout for two players named with one byte each.
+        int[][] corruptions = {
+                {6, 4, -1},         // round
+                {10, 2, 2},         // current player index
+                {20, 2, 0},         // player count
+                {20, 2, -1},
+                {22, 2, -1},        // first name length
+                {29, 2, 0},         // first player's position
+                {29, 2, 30000},
+                {31, 1, -1},        // first player's turns in jail
+                {50, 2, 3},         // owner of square 2
+        };
+        for (int[] corruption : corruptions) {
+            ByteBuffer bytes = ByteBuffer.wrap(valid.clone());
+            if (corruption[1] == 4) {
+                bytes.putInt(corruption[0], corruption[2]);
+            } else if (corruption[1] == 2) {
+                bytes.putShort(corruption[0], (short) corruption[2]);
+            } else {
+                bytes.put(corruption[0], (byte) corruption[2]);
+            }
+            assertThrows(IOException.class, () -> GameSnapshot.fromBytes(bytes.array(), GameBoard.standard(),
+                    new AlwaysBuyStrategy(), GameEvents.NONE), Arrays.toString(corruption));
+        }
+    }
+
+    @Test
+    void testLoadLegacySerializedGame() throws IOException, ClassNotFoundException {
+        Game loaded = Game.loadGame("legacy_game.ser");
+        assertEquals(2, loaded.getCurrentRound());
+        assertEquals("Bob", loaded.getCurrentPlayer().getName());
+        assertTrue(loaded.getAllPlayersStatus().contains("Bob - $1500 - Position: 11 (In Jail)"));
+        assertTrue(loaded.getGameStatus().contains("20. Peak (Owner: Cara)"));
+    }
+
+    @Test
+    void testLandingAnalyzer() {
+        LandingAnalyzer payingFines = new LandingAnalyzer(game, true);
+        double total = 0;
+        for (int position = 1; position <= payingFines.getBoardSize(); position++) {
+            total += payingFines.getLandingProbability(position);
+        }
+        assertEquals(1.0, total, 1e-9);
+
+        LandingAnalyzer stayingInJail = new LandingAnalyzer(game, false);
+        assertTrue(stayingInJail.getJailProbability() > 0);
+        assertTrue(stayingInJail.getLandingProbability(17) > stayingInJail.getLandingProbability(20));
+        assertEquals(stayingInJail.getLandingProbability(20) * 100, stayingInJail.getExpectedRent(20), 1e-12);
+        assertEquals(0.0, stayingInJail.getExpectedRent(9), 0.0);
+    }
+
+    @Test
+    void testRetiringReleasesOnlyThatPlayersProperties() {
+        game.setOwner(2, player1);
+        game.setOwner(20, player1);
+        game.setOwner(3, player2);
+        assertEquals(2, game.getProperties(player1).size());
+
+        game.retire(player1);
+
+        assertNull(game.getOwner(2));
+        assertNull(game.getOwner(20));
+        assertEquals(player2, game.getOwner(3));
+        assertTrue(game.getProperties(player1).isEmpty());
+        assertFalse(game.getPlayers().contains(player1));
+    }
+
+    @Test
+    void testCopiedStateIsIndependentAndContinuesTheSameDice() {
+        Game played = new Game(Arrays.asList("A", "B", "C"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(7));
+        played.playRound();
+        played.retire(played.getSeat(1));
+
+        GameState copy = new GameState(played.getState());
+        assertEquals(2, copy.active);
+        assertEquals(played.getCurrentRound(), copy.round);
+        assertEquals(played.getRandom().nextLong(), copy.random.nextLong());
+
+        copy.money[0] = -1;
+        copy.setOwner(2, 2);
+        copy.removeFromOrder(0);
+        assertNotEquals(-1, played.getSeat(0).getMoney());
+        assertEquals(2, played.activePlayers().size());
+        assertEquals(played.getSeat(0), played.activePlayers().get(0));
+        assertEquals(2, copy.order[0]);
+    }
+
+    @Test
+    void testForkedGamePlaysOnIndependentlyWithTheSameDice() {
+        Game original = new Game(Arrays.asList("A", "B", "C"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(11));
+        for (int round = 0; round < 5; round++) {
+            original.playRound();
+        }
+        Game fork = original.fork();
+        assertEquals(original.getGameStatus(), fork.getGameStatus());
+        assertEquals(original.getAllPlayersStatus(), fork.getAllPlayersStatus());
+        assertSame(original.getSquare(2), fork.getSquare(2));
+
+        original.play();
+        fork.play();
+        assertEquals(original.getAllPlayersStatus(), fork.getAllPlayersStatus());
+
+        Game other = original.fork(new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(1));
+        other.getSeat(0).addMoney(1000);
+        assertNotEquals(original.getSeat(0).getMoney(), other.getSeat(0).getMoney());
+    }
+
+    @Test
+    void testLookaheadStrategyComparesForksOfTheSameFutures() {
+        Game decision = new Game(Arrays.asList("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(3));
+        Player buyer = decision.getCurrentPlayer();
+        PropertySquare peak = (PropertySquare) decision.getSquare(20);
+        LookaheadStrategy lookahead = new LookaheadStrategy(16, 5, new AlwaysBuyStrategy());
+
+        long stateBefore = decision.getRandom().getState();
+        long bought = lookahead.netWorthAfter(buyer, peak, decision, true);
+        assertEquals(bought, lookahead.netWorthAfter(buyer, peak, decision, true));
+        assertEquals(bought > lookahead.netWorthAfter(buyer, peak, decision, false),
+                lookahead.buyProperty(buyer, peak, decision));
+        assertEquals(stateBefore, decision.getRandom().getState());
+        assertNull(decision.getOwner(20));
+        assertEquals(1500, buyer.getMoney());
+    }
+
+    @Test
+    void testFinishRoundEndsTheTurnWithTheBuildingOffer() throws Exception {
+        GameBoard board = BoardSpec.parse(BoardSpec.STANDARD + "group 2,3 100\n");
+        Game grouped = new Game(board, Arrays.asList("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(1));
+        Player owner = grouped.getSeat(0);
+        grouped.setOwner(2, owner);
+        grouped.setOwner(3, owner);
+        owner.setPosition(3);
+
+        Game fork = grouped.fork(new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(2));
+        fork.finishRound(fork.getSeat(0));
+        assertEquals(1, fork.getHouses(2) + fork.getHouses(3));
+        assertEquals(0, grouped.getHouses(2) + grouped.getHouses(3));
+    }
+
+    @Test
+    void testConsolePromptsReadQueuedLinesInOrder() {
+        GameInput.Queue input = new GameInput.Queue();
+        ConsoleStrategy console = new ConsoleStrategy(input);
+        PropertySquare central = (PropertySquare) game.getSquare(2);
+        input.offer("maybe");
+        input.offer(" Y ");
+        input.offer("n");
+        input.offer("");
+        input.offer(" 3 extra words");
+        input.offer("x");
+        input.close();
+
+        assertTrue(console.buyProperty(player1, central, game));
+        assertFalse(console.payJailFine(player1, game));
+        assertEquals(3, input.readInt());
+        assertThrows(InputMismatchException.class, input::readInt);
+        assertThrows(NoSuchElementException.class, input::readLine);
+        assertThrows(NoSuchElementException.class, input::readLine);
+    }
+
+    @Test
+    void testColourGroupsDoubleRentAndHousesRaiseIt() throws Exception {
+        GameBoard board = BoardSpec.parse(BoardSpec.STANDARD + "group 2,3 100\ngroup 12,13,14 50\n");
+        assertSame(board.layout(), BoardSpec.parse(BoardSpec.format(board)).layout());
+        assertSame(board.layout(), BoardSpec.fromBytes(BoardSpec.toBytes(board)).layout());
+        Game grouped = new Game(board, Arrays.asList("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE,
+                new GameRandom(1));
+        Player owner = grouped.getSeat(0);
+        Player visitor = grouped.getSeat(1);
+
+        grouped.setOwner(2, owner);
+        assertEquals(90, grouped.rentAt(2));
+        assertFalse(grouped.ownsGroup(0, 0));
+        grouped.setOwner(3, owner);
+        assertTrue(grouped.ownsGroup(0, 0));
+        assertEquals(180, grouped.rentAt(2));
+        assertEquals(130, grouped.rentAt(3));
+
+        owner.setPosition(5);
+        grouped.takeTurn(owner);
+        assertEquals(1, grouped.getHouses(2) + grouped.getHouses(3));
+        grouped.setHouses(2, BoardLayout.HOTEL);
+        assertEquals(90 * 125, grouped.rentAt(2));
+        assertTrue(grouped.getGameStatus().contains("2. Central (Owner: A) - hotel"));
+        assertEquals(grouped.getGameStatus(), new StatusView(grouped).getGameStatus());
+
+        Game restored = GameSnapshot.fromBytes(GameSnapshot.toBytes(grouped), board);
+        assertEquals(BoardLayout.HOTEL, restored.getHouses(2));
+        assertEquals(grouped.getGameStatus(), restored.getGameStatus());
+
+        grouped.retire(owner);
+        assertEquals(0, grouped.getHouses(2));
+        assertEquals(0, new Game(Arrays.asList("C", "D")).getHouseCost(2));
+        assertThrows(IllegalArgumentException.class, () -> board.addGroup(10, 3));
+        assertThrows(IOException.class, () -> BoardSpec.parse("size 4\n1 go\ngroup 2,2 10\n2,3,4 parking\n"));
+        assertThrows(IllegalArgumentException.class, () -> BoardSpec.parse("size 4\n1 go\ngroup 1 10\n2,3,4 parking\n").layout());
+    }
+
+    @Test
+    void testConsoleRendererKeepsWordingAndOrder() throws Exception {
+        List<String> names = Arrays.asList("Player1", "Player2", "Player3");
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        PrintStream directOut = new PrintStream(direct);
+        directOut.println("Menu before the game");
+        new Game(names, new AlwaysBuyStrategy(), new ConsoleEvents(directOut), new GameRandom(3)).play();
+        directOut.print("Enter your choice: ");
+
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(Channels.newChannel(rendered));
+        renderer.out().println("Menu before the game");
+        new Game(names, new AlwaysBuyStrategy(), renderer.events(), new GameRandom(3)).play();
+        renderer.out().print("Enter your choice: ");
+        renderer.sync();
+        assertEquals(direct.toString(), rendered.toString());
+
+        renderer.out().println("after sync");
+        renderer.close();
+        assertTrue(rendered.toString().endsWith("Enter your choice: after sync" + System.lineSeparator()));
+    }
+
+    @Test
+    void testConsoleRendererReportsAnEventItCannotFormat() throws Exception {
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(Channels.newChannel(rendered));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            renderer.out().println("before");
+            renderer.events().rolled(null, 1, 2);
+            renderer.out().println("after");
+            Future<?> sync = executor.submit(renderer::sync);
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> sync.get(10, TimeUnit.SECONDS));
+            assertTrue(failed.getCause() instanceof UncheckedIOException);
+
+            renderer.out().println("next");
+            executor.submit(renderer::sync).get(10, TimeUnit.SECONDS);
+            String nl = System.lineSeparator();
+            assertEquals("before" + nl + "after" + nl + "next" + nl, rendered.toString());
+        } finally {
+            executor.shutdownNow();
+            renderer.close();
+        }
+    }
+
+    @Test
+    void testCoordinatorRerunsFailedShardsAndMergesLikeOneRun() throws Exception {
+        SimulationJob job = new SimulationJob(null, Arrays.asList("always", "cash:300", "roi:0.1"), 3000, 99);
+        SimulationCoordinator coordinator = new SimulationCoordinator(job, 1000);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        int port = coordinator.open(loopback);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<SimulationResult> run = executor.submit(coordinator::run);
+            try (Socket flaky = new Socket(loopback, port)) {
+                DataInputStream in = new DataInputStream(flaky.getInputStream());
+                assertEquals(job.strategies, SimulationJob.readFrom(in).strategies);
+                assertEquals(0, in.readLong());
+            }
+            executor.submit(() -> {
+                SimulationWorker.serve(new Socket(loopback, port));
+                return null;
+            });
+            SimulationResult merged = run.get(60, TimeUnit.SECONDS);
+
+            SimulationResult local = job.simulation().run(0, 3000, 99);
+            ByteArrayOutputStream localBytes = new ByteArrayOutputStream();
+            local.writeTo(new DataOutputStream(localBytes));
+            ByteArrayOutputStream mergedBytes = new ByteArrayOutputStream();
+            merged.writeTo(new DataOutputStream(mergedBytes));
+            assertArrayEquals(localBytes.toByteArray(), mergedBytes.toByteArray());
+            assertEquals(local.summary(job.playerNames()), merged.summary(job.playerNames()));
+            assertEquals(1, coordinator.getRetries());
+            assertTrue(merged.getRoundsQuantile(0.5) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SimulationJob(null, Arrays.asList("always", "bogus"), 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SimulationJob(null, Arrays.asList("always", "always"), -1, 1));
+        assertEquals(0, new SimulationCoordinator(new SimulationJob(null, Arrays.asList("always", "always"), 0, 1), 10)
+                .run().getGames());
+    }
+
+    @Test
+    void testStoredGamesPlayLikeGamesOnTheHeap() {
+        List<String> names = Arrays.asList("A", "B", "C", "D");
+        GameStore store = new GameStore(GameBoard.standard(), names);
+        assertEquals(128, store.getSlotSize());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, store.add(GameRandom.forGame(7, i)));
+        }
+        GameStore.View view = store.view(new CashThresholdStrategy(200), GameEvents.NONE);
+        boolean[] over = new boolean[store.size()];
+        int playing = over.length;
+        while (playing > 0) {
+            for (int slot = 0; slot < over.length; slot++) {
+                if (!over[slot] && view.playRounds(slot, 1 + slot % 3)) {
+                    over[slot] = true;
+                    playing--;
+                }
+            }
+        }
+
+        for (int slot = 0; slot < over.length; slot++) {
+            Game heap = new Game(GameBoard.standard(), names, new CashThresholdStrategy(200), GameEvents.NONE,
+                    GameRandom.forGame(7, slot));
+            heap.play();
+            Game stored = view.load(slot);
+            assertEquals(heap.getCurrentRound(), stored.getCurrentRound());
+            assertEquals(heap.getGameStatus(), stored.getGameStatus());
+            assertEquals(new StatusView(heap).getAllPlayersStatus(), new StatusView(stored).getAllPlayersStatus());
+        }
+        store.reset(3, new GameRandom(1));
+        assertEquals(0, view.load(3).getCurrentRound());
+        assertEquals(GameState.STARTING_MONEY, view.load(3).getSeat(2).getMoney());
+        assertThrows(IndexOutOfBoundsException.class, () -> view.load(50));
+    }
+
+    @Test
+    void testGameArchiveKeepsRecordsWiderThanAShort() throws IOException {
+        GameBoard board = new GameBoard(GameBoard.MAX_SIZE);
+        board.setSquare(1, new GoSquare());
+        for (int position = 2; position <= GameBoard.MAX_SIZE; position++) {
+            board.setSquare(position, new FreeParkingSquare(position));
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= Byte.MAX_VALUE; i++) {
+            names.add("Player" + i);
+        }
+        Game game = new Game(board, names, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(5));
+        assertTrue(GameArchive.recordWidth(names.size(), GameBoard.MAX_SIZE) > Short.MAX_VALUE);
+
+        File file = File.createTempFile("monopoly", ".arc");
+        file.deleteOnExit();
+        try (GameArchive.Writer writer = GameArchive.create(file.getPath(), 5L, names.size(), GameBoard.MAX_SIZE)) {
+            GameArchive.Batch batch = writer.newBatch(0, 1);
+            batch.add(5L, game);
+            writer.append(batch);
+        }
+        try (GameArchive archive = GameArchive.open(file.getPath())) {
+            assertEquals(GameBoard.MAX_SIZE, archive.getBoardSize());
+            assertEquals(Byte.MAX_VALUE, archive.getPlayers());
+            assertEquals(5L, archive.getSeed(archive.find(0)));
+            assertEquals(game.getPlayers().get(126).getMoney(), archive.getMoney(0, 126));
+            assertEquals(-1, archive.getOwner(0, GameBoard.MAX_SIZE));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> GameArchive.create(file.getPath(), 5L, 2, GameBoard.MAX_SIZE + 1));
+    }
+
+    @Test
+    void testLargeBoardWrapsAroundGo() {
+        GameBoard board = new GameBoard(60);
+        board.setSquare(1, new GoSquare());
+        for (int position = 2; position <= 60; position++) {
+            board.setSquare(position, new FreeParkingSquare(position));
+        }
+        board.setSquare(30, new GoToJailSquare(30));
+        board.setJailPosition(45);
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            names.add("Player" + i);
+        }
+        Game large = new Game(board, names, new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(1));
+        Player first = large.getCurrentPlayer();
+        first.setPosition(60);
+
+        large.takeTurn(first);
+
+        assertEquals(3000, first.getMoney());
+        assertTrue(first.getPosition() >= 2 && first.getPosition() <= 8);
+        assertThrows(IllegalArgumentException.class, () -> board.setSquare(61, new FreeParkingSquare(61)));
+    }
+
+    @Test
+    void testLatencyHistogramQuantilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000, histogram.max());
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            long exact = (long) (q * 100_000);
+            long reported = histogram.quantile(q);
+            assertTrue(reported <= exact && reported > exact * 0.93, q + " -> " + reported);
+        }
+        for (long value : new long[] {0, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            long lower = LatencyHistogram.lowerBound(LatencyHistogram.bucketOf(value));
+            assertTrue(lower <= value && value - lower <= value / 16, value + " -> " + lower);
+        }
+    }
+
+    @Test
+    void testMetricsTallyCountsEachTurnOnceAcrossFlushes() {
+        GameMetrics.Tally tally = new GameMetrics.Tally();
+        long before = GameMetrics.TURNS.sum();
+        int sampled = 0;
+        for (int turn = 1; turn <= 200; turn++) {
+            if (tally.sampleTurn()) {
+                sampled++;
+            }
+            if (turn % 10 == 0) {
+                tally.flush();
+            }
+        }
+        tally.flush();
+        assertEquals(200 / GameMetrics.SAMPLE_INTERVAL, sampled);
+        assertEquals(200, GameMetrics.TURNS.sum() - before);
+
+        Game game = new Game(Arrays.asList("A", "B"), new AlwaysBuyStrategy(), GameEvents.NONE, new GameRandom(3));
+        assertEquals(GameMetrics.ENABLED, game.getTally() != null);
+        assertNull(game.fork().getTally());
+    }
+
+}
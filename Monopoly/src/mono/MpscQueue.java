@@ -0,0 +1,62 @@
+package mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An unbounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Producers swap their node in as the newest with one atomic exchange and then link
+ * the previous newest node to it; the consumer follows the links from a sentinel.
+ * Between those two producer steps the queue can look empty to the consumer, so a
+ * consumer that stops on {@link #poll} returning null must be woken again by the
+ * producer afterwards, as {@link GameActor} does.
+ */
+final class MpscQueue<E> {
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> newest;
+    private Node<E> oldest;
+
+    public MpscQueue() {
+        Node<E> sentinel = new Node<>(null);
+        this.newest = new AtomicReference<>(sentinel);
+        this.oldest = sentinel;
+    }
+
+    /**
+     * Adds {@code value}. Safe to call from any thread.
+     */
+    public void offer(E value) {
+        Node<E> node = new Node<>(value);
+        newest.getAndSet(node).next = node;
+    }
+
+    /**
+     * Removes and returns the oldest value, or null if there is none. Only the single
+     * consumer thread may call this.
+     */
+    public E poll() {
+        Node<E> next = oldest.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null;
+        oldest = next;
+        return value;
+    }
+
+    /**
+     * Returns true if {@link #poll} would return null. Only the consumer may call this.
+     */
+    public boolean isEmpty() {
+        return oldest.next == null;
+    }
+}
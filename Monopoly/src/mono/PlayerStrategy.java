@@ -0,0 +1,296 @@
+package mono;
+
+import java.util.stream.IntStream;
+
+/**
+ * Makes the decisions a player is asked for during a turn.
+ */
+interface PlayerStrategy {
+    /**
+     * Called when {@code player} lands on an unowned property they can afford.
+     */
+    boolean buyProperty(Player player, PropertySquare property, Game game);
+
+    /**
+     * Called at the end of {@code player}'s turn for each colour group they own outright
+     * and can afford a house on; {@code property} is where the house would go. Boards
+     * without groups never ask. By default no houses are built.
+     */
+    default boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return false;
+    }
+
+    /**
+     * Called at the start of a jail turn when {@code player} can afford the $150 fine.
+     */
+    boolean payJailFine(Player player, Game game);
+}
+
+/**
+ * Asks the person at the keyboard, or whoever feeds the console {@link GameInput}.
+ */
+class ConsoleStrategy implements PlayerStrategy {
+    private final GameInput input;
+
+    public ConsoleStrategy() {
+        this(null);
+    }
+
+    /**
+     * Reads answers from {@code input}, or from {@link GameInput#console()} at each prompt
+     * if it is null.
+     */
+    public ConsoleStrategy(GameInput input) {
+        this.input = input;
+    }
+
+    private GameInput input() {
+        return input != null ? input : GameInput.console();
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        while (true) {
+            ConsoleRenderer.console().out().printf("%s can buy %s for $%d. Do you want to buy? (y/n): ",
+                    player.getName(), property.getName(), property.getPrice());
+            String choice = input().readLine().trim().toLowerCase();
+
+            if (choice.equals("y")) {
+                return true;
+            } else if (choice.equals("n")) {
+                return false;
+            } else {
+                ConsoleRenderer.console().out().println("Invalid input! Please enter 'y' for yes or 'n' for no.");
+            }
+        }
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        ConsoleRenderer.console().out().printf("%s can build on %s. Do you want to build? (y/n): ",
+                player.getName(), property.getName());
+        return input().readLine().trim().toLowerCase().equals("y");
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        ConsoleRenderer.console().out().printf("Do you want to pay $150 to get out of jail? (y/n): ");
+        String choice = input().readLine().trim().toLowerCase();
+        return choice.equals("y");
+    }
+}
+
+/**
+ * Buys every property and house it can afford and always pays to leave jail.
+ */
+class AlwaysBuyStrategy implements PlayerStrategy {
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return true;
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return true;
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return true;
+    }
+}
+
+/**
+ * Gives each seat its own strategy, so different bots can play against each other in
+ * one game. Seats are numbered in the order players joined.
+ */
+class PerSeatStrategy implements PlayerStrategy {
+    private final PlayerStrategy[] strategies;
+
+    public PerSeatStrategy(PlayerStrategy... strategies) {
+        this.strategies = strategies.clone();
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return strategies[player.getSeat()].buyProperty(player, property, game);
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return strategies[player.getSeat()].buildHouse(player, property, game);
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return strategies[player.getSeat()].payJailFine(player, game);
+    }
+}
+
+/**
+ * Buys, builds and pays the jail fine only while it keeps at least {@code reserve} in
+ * cash.
+ */
+class CashThresholdStrategy implements PlayerStrategy {
+    private final int reserve;
+
+    public CashThresholdStrategy(int reserve) {
+        this.reserve = reserve;
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return player.getMoney() - property.getPrice() >= reserve;
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return player.getMoney() - game.getHouseCost(property.getPosition()) >= reserve;
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return player.getMoney() - 150 >= reserve;
+    }
+}
+
+/**
+ * Buys properties whose rent is at least {@code minYield} of their price, such as 0.08
+ * for a property that earns back 8% of its price each time someone lands on it. Always
+ * pays to leave jail.
+ */
+class RoiStrategy implements PlayerStrategy {
+    private final double minYield;
+
+    public RoiStrategy(double minYield) {
+        this.minYield = minYield;
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return property.getRent() >= minYield * property.getPrice();
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return true;
+    }
+}
+
+/**
+ * Weighs each decision with the landing odds from a {@link LandingAnalyzer} of the
+ * board it plays on.
+ * <p>
+ * A property is bought when the rent it is expected to collect from the opponents over
+ * the rounds left exceeds its price. The jail fine is paid when an average turn out of
+ * jail is worth more in salary from Go than it costs in rent to the other players.
+ */
+class ExpectedValueStrategy implements PlayerStrategy {
+    private final LandingAnalyzer analyzer;
+    private final double salaryPerTurn;
+
+    public ExpectedValueStrategy(GameBoard board) {
+        this.analyzer = new LandingAnalyzer(board, true);
+        // Two dice move a player SIDES + 1 squares a turn on average.
+        this.salaryPerTurn = GoSquare.SALARY * (Dice.SIDES + 1.0) / board.getSize();
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        int opponents = game.getPlayers().size() - 1;
+        int roundsLeft = Game.MAX_ROUNDS - game.getCurrentRound();
+        double expectedRent = analyzer.getExpectedRent(property.getPosition()) * opponents * roundsLeft;
+        return expectedRent > property.getPrice();
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        double rentExposure = 0;
+        for (int position = 1; position <= analyzer.getBoardSize(); position++) {
+            Player owner = game.getOwner(position);
+            if (owner != null && owner != player) {
+                rentExposure += analyzer.getExpectedRent(position);
+            }
+        }
+        return salaryPerTurn > rentExposure;
+    }
+}
+
+/**
+ * Decides a purchase by looking ahead: forks the game once per rollout and choice,
+ * applies the purchase or not, plays each fork {@code horizon} rounds further with a
+ * simple {@code policy} for every player, and buys if that leaves the player with the
+ * higher net worth (money plus the price of everything they own and the cost of its
+ * houses) summed over all rollouts. Both choices roll the same dice in a given
+ * rollout, so the comparison is not swamped by luck. Rollouts run in parallel; the
+ * sums are exact, so the decision is the same whatever the pool size. Building and
+ * jail decisions are left to the policy.
+ */
+class LookaheadStrategy implements PlayerStrategy {
+    private final int rollouts;
+    private final int horizon;
+    private final PlayerStrategy policy;
+
+    public LookaheadStrategy() {
+        this(64, 10, new AlwaysBuyStrategy());
+    }
+
+    /**
+     * {@code policy} plays every seat inside the rollouts, from many threads at once.
+     */
+    public LookaheadStrategy(int rollouts, int horizon, PlayerStrategy policy) {
+        if (rollouts < 1 || horizon < 0) {
+            throw new IllegalArgumentException("Need at least one rollout and a non-negative horizon");
+        }
+        this.rollouts = rollouts;
+        this.horizon = horizon;
+        this.policy = policy;
+    }
+
+    @Override
+    public boolean buyProperty(Player player, PropertySquare property, Game game) {
+        return netWorthAfter(player, property, game, true) > netWorthAfter(player, property, game, false);
+    }
+
+    @Override
+    public boolean buildHouse(Player player, PropertySquare property, Game game) {
+        return policy.buildHouse(player, property, game);
+    }
+
+    @Override
+    public boolean payJailFine(Player player, Game game) {
+        return policy.payJailFine(player, game);
+    }
+
+    /**
+     * Returns {@code player}'s net worth summed over every rollout, after buying
+     * {@code property} or not.
+     */
+    long netWorthAfter(Player player, PropertySquare property, Game game, boolean buy) {
+        // Derived from the game's position without drawing from it, so the real dice are untouched.
+        long seed = game.getRandom().getState() + property.getPosition();
+        return IntStream.range(0, rollouts).parallel()
+                .mapToLong(rollout -> rollout(player, property, game, buy, GameRandom.forGame(seed, rollout)))
+                .sum();
+    }
+
+    private long rollout(Player player, PropertySquare property, Game game, boolean buy, GameRandom random) {
+        Game fork = game.fork(policy, GameEvents.NONE, random);
+        Player me = fork.getSeat(player.getSeat());
+        if (buy) {
+            me.reduceMoney(property.getPrice());
+            fork.setOwner(property.getPosition(), me);
+        }
+        fork.finishRound(me);
+        for (int round = 0; round < horizon && !fork.isGameOver(); round++) {
+            fork.playRound();
+        }
+
+        long netWorth = me.getMoney();
+        for (PropertySquare owned : fork.getProperties(me)) {
+            int position = owned.getPosition();
+            netWorth += owned.getPrice() + fork.getHouses(position) * fork.getHouseCost(position);
+        }
+        return netWorth;
+    }
+}
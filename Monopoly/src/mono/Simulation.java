@@ -0,0 +1,107 @@
+package mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays complete games with no console input or output. Decisions come from a
+ * {@link PlayerStrategy} and each game draws from its own {@link GameRandom}, so
+ * the strategy must be safe to share when a {@link Tournament} runs games in parallel.
+ */
+class Simulation {
+    private final GameBoard board;
+    private final List<String> playerNames;
+    private final PlayerStrategy strategy;
+
+    public Simulation(List<String> playerNames, PlayerStrategy strategy) {
+        this(null, playerNames, strategy);
+    }
+
+    /**
+     * Plays on {@code board}, or on the standard board if it is null.
+     */
+    public Simulation(GameBoard board, List<String> playerNames, PlayerStrategy strategy) {
+        this.board = board;
+        this.playerNames = playerNames;
+        this.strategy = strategy;
+    }
+
+    public int getPlayerCount() {
+        return playerNames.size();
+    }
+
+    public Game playGame() {
+        return playGame(new GameRandom(), GameEvents.NONE);
+    }
+
+    public Game playGame(GameRandom random, GameEvents events) {
+        Game game = newGame(random, events);
+        game.play();
+        return game;
+    }
+
+    private Game newGame(GameRandom random, GameEvents events) {
+        return board == null ? new Game(playerNames, strategy, events, random)
+                : new Game(board, playerNames, strategy, events, random);
+    }
+
+    /**
+     * Plays games {@code firstGame} to {@code firstGame + games - 1} of the run seeded
+     * by {@code masterSeed} on the calling thread.
+     */
+    public SimulationResult run(long firstGame, long games, long masterSeed) {
+        try {
+            return run(firstGame, games, masterSeed, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plays games like {@link #run(long, long, long)} and also appends them to
+     * {@code archive} as one batch, unless it is null.
+     */
+    public SimulationResult run(long firstGame, long games, long masterSeed, GameArchive.Writer archive)
+            throws IOException {
+        SimulationResult result = new SimulationResult(playerNames.size());
+        SimulationResult.Recorder recorder = result.recorder();
+        GameArchive.Batch batch = archive == null ? null : archive.newBatch(firstGame, (int) games);
+        for (long i = firstGame; i < firstGame + games; i++) {
+            GameRandom random = GameRandom.forGame(masterSeed, i);
+            long seed = random.getState();
+            Game game = newGame(random, recorder);
+            List<Player> seats = game.getPlayers();
+            game.play();
+            result.addGame(game, seats);
+            if (batch != null) {
+                batch.add(seed, game);
+            }
+        }
+        if (archive != null) {
+            archive.append(batch);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 3211L;
+
+        List<String> playerNames = new ArrayList<>();
+        for (int i = 1; i <= numPlayers; i++) {
+            playerNames.add("Player " + i);
+        }
+        Tournament tournament = new Tournament(new Simulation(playerNames, new AlwaysBuyStrategy()), seed);
+
+        long start = System.nanoTime();
+        SimulationResult result = tournament.run(games);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Played %d games in %d ms (%.0f games/sec)%n",
+                games, elapsed / 1_000_000, games / (elapsed / 1e9));
+        System.out.print(result.summary(playerNames));
+    }
+}
@@ -0,0 +1,427 @@
+package mono;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A simulation run to split across processes: the board, one strategy per seat, the
+ * number of games and the master seed. Strategies are named so that a worker can
+ * build its own:
+ * <pre>
+ *   always          AlwaysBuyStrategy
+ *   cash:500        CashThresholdStrategy keeping $500 in reserve
+ *   roi:0.08        RoiStrategy buying at a rent yield of 8% or more
+ *   ev              ExpectedValueStrategy for the job's board
+ *   lookahead       LookaheadStrategy with its default rollouts
+ * </pre>
+ */
+final class SimulationJob {
+    private static final int MAGIC = 0x4D4E534A; // "MNSJ"
+    private static final int MAX_BOARD_BYTES = 16 << 20;
+
+    final GameBoard board;
+    final List<String> strategies;
+    final long games;
+    final long masterSeed;
+
+    /**
+     * @param board the board to play on, or null for the standard board
+     */
+    SimulationJob(GameBoard board, List<String> strategies, long games, long masterSeed) {
+        int maxPlayers = board == null ? 6 : GameState.MAX_SEATS;
+        if (strategies.size() < 2 || strategies.size() > maxPlayers) {
+            throw new IllegalArgumentException("Number of players must be between 2 and " + maxPlayers);
+        }
+        if (games < 0) {
+            throw new IllegalArgumentException("Number of games must not be negative: " + games);
+        }
+        for (String strategy : strategies) {
+            strategy(strategy, board);
+        }
+        this.board = board;
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(strategies));
+        this.games = games;
+        this.masterSeed = masterSeed;
+    }
+
+    List<String> playerNames() {
+        List<String> names = new ArrayList<>(strategies.size());
+        for (int seat = 0; seat < strategies.size(); seat++) {
+            names.add("Player " + (seat + 1) + " (" + strategies.get(seat) + ")");
+        }
+        return names;
+    }
+
+    Simulation simulation() {
+        PlayerStrategy[] seats = new PlayerStrategy[strategies.size()];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat] = strategy(strategies.get(seat), board);
+        }
+        return new Simulation(board, playerNames(), new PerSeatStrategy(seats));
+    }
+
+    /**
+     * Builds the strategy named by {@code spec}.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static PlayerStrategy strategy(String spec, GameBoard board) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        String argument = colon < 0 ? null : spec.substring(colon + 1);
+        try {
+            switch (name) {
+                case "always": return new AlwaysBuyStrategy();
+                case "cash": return new CashThresholdStrategy(Integer.parseInt(argument));
+                case "roi": return new RoiStrategy(Double.parseDouble(argument));
+                case "ev": return new ExpectedValueStrategy(board == null ? GameBoard.standard() : board);
+                case "lookahead": return new LookaheadStrategy();
+                default: break;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid strategy: " + spec);
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + spec);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        byte[] boardBytes = board == null ? new byte[0] : BoardSpec.toBytes(board);
+        out.writeInt(boardBytes.length);
+        out.write(boardBytes);
+        out.writeInt(strategies.size());
+        for (String strategy : strategies) {
+            out.writeUTF(strategy);
+        }
+        out.writeLong(games);
+        out.writeLong(masterSeed);
+    }
+
+    static SimulationJob readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a simulation job");
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_BOARD_BYTES) {
+            throw new IOException("Invalid board of " + length + " bytes");
+        }
+        byte[] boardBytes = new byte[length];
+        in.readFully(boardBytes);
+        int seats = in.readInt();
+        if (seats < 2 || seats > GameState.MAX_SEATS) {
+            throw new IOException("Invalid number of players: " + seats);
+        }
+        List<String> strategies = new ArrayList<>(seats);
+        for (int seat = 0; seat < seats; seat++) {
+            strategies.add(in.readUTF());
+        }
+        long games = in.readLong();
+        if (games < 0) {
+            throw new IOException("Invalid number of games: " + games);
+        }
+        long masterSeed = in.readLong();
+        try {
+            return new SimulationJob(length == 0 ? null : BoardSpec.fromBytes(boardBytes), strategies, games, masterSeed);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+}
+
+/**
+ * Runs a {@link SimulationJob} across worker processes. The games are cut into shards
+ * of consecutive game numbers; each worker that connects is sent the job once and then
+ * one shard at a time, and answers each with the shard's {@link SimulationResult}.
+ * <p>
+ * Game {@code i} is seeded with {@code GameRandom.forGame(masterSeed, i)} wherever it
+ * runs and results only add counters, so the merged result is the same as playing
+ * every game in one JVM, whichever workers played which shards. Shards are still
+ * merged in order.
+ * <p>
+ * A shard whose worker disconnects, fails or takes longer than
+ * {@link #SHARD_TIMEOUT_MILLIS} goes back in the queue for another worker, up to
+ * {@value #MAX_ATTEMPTS} attempts. Workers launched by the coordinator are replaced
+ * when they exit early. Workers on other hosts join with
+ * {@code java mono.SimulationWorker host port} while the coordinator runs.
+ */
+final class SimulationCoordinator {
+    static final int MAX_ATTEMPTS = 3;
+    static final int SHARD_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+    private final SimulationJob job;
+    private final long shardGames;
+    private final int shards;
+
+    private final ArrayDeque<Integer> queued = new ArrayDeque<>();
+    private final SimulationResult[] results;
+    private final int[] attempts;
+    private int remaining;
+    private int retries;
+    private int replacements;
+    private IOException failure;
+
+    private final List<Process> workers = new ArrayList<>();
+    private ServerSocket server;
+
+    SimulationCoordinator(SimulationJob job, long shardGames) {
+        if (shardGames < 1) {
+            throw new IllegalArgumentException("Shards need at least one game");
+        }
+        this.job = job;
+        this.shardGames = shardGames;
+        this.shards = (int) ((job.games + shardGames - 1) / shardGames);
+        this.results = new SimulationResult[shards];
+        this.attempts = new int[shards];
+        this.remaining = shards;
+        for (int shard = 0; shard < shards; shard++) {
+            queued.add(shard);
+        }
+    }
+
+    /**
+     * Starts listening for workers on {@code address} and returns the port.
+     */
+    int open(InetAddress address) throws IOException {
+        server = new ServerSocket();
+        server.bind(new InetSocketAddress(address, 0));
+        Thread acceptor = new Thread(this::accept, "simulation-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts {@code count} worker JVMs on this host, with this JVM's class path.
+     */
+    void launch(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            launchWorker();
+        }
+    }
+
+    /**
+     * Waits until every shard has been played and returns the merged result.
+     *
+     * @throws IOException if a shard failed {@value #MAX_ATTEMPTS} times
+     */
+    SimulationResult run() throws IOException, InterruptedException {
+        try {
+            synchronized (this) {
+                while (remaining > 0 && failure == null) {
+                    wait();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            SimulationResult merged = new SimulationResult(job.strategies.size());
+            for (SimulationResult result : results) {
+                merged.merge(result);
+            }
+            return merged;
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            synchronized (this) {
+                for (Process worker : workers) {
+                    worker.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many shards were handed out again after a worker failed.
+     */
+    synchronized int getRetries() {
+        return retries;
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "simulation-worker-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            // Closed by run() once the job is done.
+        }
+    }
+
+    /**
+     * Feeds shards to one connected worker until none are left or it fails.
+     */
+    private void serve(Socket socket) {
+        int shard = -1;
+        try (Socket connection = socket) {
+            connection.setSoTimeout(SHARD_TIMEOUT_MILLIS);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            job.writeTo(out);
+            while ((shard = nextShard()) >= 0) {
+                long firstGame = shard * shardGames;
+                out.writeLong(firstGame);
+                out.writeLong(Math.min(shardGames, job.games - firstGame));
+                out.flush();
+                SimulationResult result = SimulationResult.readFrom(in);
+                if (result.getGames() != Math.min(shardGames, job.games - firstGame)) {
+                    throw new IOException("Shard " + shard + " came back with " + result.getGames() + " games");
+                }
+                finish(shard, result);
+                shard = -1;
+            }
+            out.writeLong(-1);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            if (shard >= 0) {
+                fail(shard, e);
+            }
+        }
+    }
+
+    private synchronized int nextShard() throws InterruptedException {
+        while (queued.isEmpty() && remaining > 0 && failure == null) {
+            wait();
+        }
+        if (queued.isEmpty()) {
+            return -1;
+        }
+        int shard = queued.poll();
+        attempts[shard]++;
+        return shard;
+    }
+
+    private synchronized void finish(int shard, SimulationResult result) {
+        results[shard] = result;
+        remaining--;
+        notifyAll();
+    }
+
+    private synchronized void fail(int shard, Exception cause) {
+        if (attempts[shard] >= MAX_ATTEMPTS) {
+            failure = new IOException("Shard " + shard + " failed " + MAX_ATTEMPTS + " times", cause);
+        } else {
+            retries++;
+            queued.addFirst(shard);
+        }
+        notifyAll();
+    }
+
+    private synchronized void launchWorker() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process worker = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "mono.SimulationWorker", server.getInetAddress().getHostAddress(),
+                String.valueOf(server.getLocalPort()))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        workers.add(worker);
+        worker.onExit().thenRun(() -> replace(worker));
+    }
+
+    /**
+     * Starts a new worker in place of one that exited before the job was done. Every
+     * shard may be retried {@code MAX_ATTEMPTS - 1} times, so there are never more
+     * replacements than that; once they run out and no worker is left, the job fails.
+     */
+    private synchronized void replace(Process worker) {
+        if (remaining == 0 || failure != null || !workers.remove(worker)) {
+            return;
+        }
+        try {
+            if (replacements < shards * (MAX_ATTEMPTS - 1)) {
+                replacements++;
+                launchWorker();
+            } else if (workers.isEmpty()) {
+                throw new IOException("Every worker exited with " + remaining + " shards left");
+            }
+        } catch (IOException e) {
+            failure = e;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Runs a job over worker processes on this host. Arguments: games, master seed,
+     * worker count, a board file or {@code standard}, then one strategy per seat
+     * (four {@code always} players by default). Set {@code -Dmono.coordinator.host} to
+     * listen on an address other workers can reach.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 3211L;
+        int workerCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameBoard board = args.length > 3 && !args[3].equals("standard") ? GameBoard.loadBoard(args[3]) : null;
+        List<String> strategies = args.length > 4 ? Arrays.asList(args).subList(4, args.length)
+                : Arrays.asList("always", "always", "always", "always");
+
+        SimulationJob job = new SimulationJob(board, strategies, games, seed);
+        SimulationCoordinator coordinator = new SimulationCoordinator(job,
+                Math.max(1, games / Math.max(1, workerCount * 4)));
+        String host = System.getProperty("mono.coordinator.host");
+        int port = coordinator.open(host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host));
+        System.out.printf("Coordinator listening on %s:%d%n", coordinator.server.getInetAddress().getHostAddress(), port);
+        coordinator.launch(workerCount);
+
+        long start = System.nanoTime();
+        SimulationResult result = coordinator.run();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Played %d games in %d shards on %d workers in %d ms (%d retried)%n",
+                games, coordinator.shards, workerCount, elapsed / 1_000_000, coordinator.getRetries());
+        System.out.print(result.summary(job.playerNames()));
+    }
+}
+
+/**
+ * Plays shards of a {@link SimulationJob} for a {@link SimulationCoordinator} over one
+ * socket, using every core of its JVM for each shard.
+ */
+final class SimulationWorker {
+    private SimulationWorker() {}
+
+    /**
+     * Reads the job, then plays each shard the coordinator sends and answers with its
+     * result, until the coordinator says there are no more.
+     */
+    static void serve(Socket socket) throws IOException {
+        try (Socket connection = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            SimulationJob job = SimulationJob.readFrom(in);
+            Tournament tournament = new Tournament(job.simulation(), job.masterSeed);
+            while (true) {
+                long firstGame = in.readLong();
+                if (firstGame < 0) {
+                    return;
+                }
+                long games = in.readLong();
+                tournament.run(firstGame, games, ForkJoinPool.commonPool()).writeTo(out);
+                out.flush();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        serve(new Socket(args[0], Integer.parseInt(args[1])));
+    }
+}
@@ -0,0 +1,229 @@
+package mono;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Totals from a batch of simulated games. Results from separate shards are combined
+ * with {@link #merge}, which only adds counters, so the merged totals do not depend on
+ * how the games were split up.
+ * <p>
+ * Final cash and game length are kept as histograms, which merge exactly and answer
+ * quantiles to within a bucket: {@value #CASH_BUCKET} dollars for cash and one round
+ * for length. {@link #writeTo} and {@link #readFrom} move a result between processes.
+ */
+class SimulationResult {
+    static final int CASH_BUCKET = 1000;
+    static final int CASH_BUCKETS = 101;
+
+    private static final int VERSION = 1;
+
+    private final long[] wins;
+    private final long[] finalCash;
+    private final long[] survivals;
+    private final long[] bankruptciesByRound = new long[Game.MAX_ROUNDS + 1];
+    private final long[] cashHistogram = new long[CASH_BUCKETS];
+    private final long[] roundHistogram = new long[Game.MAX_ROUNDS + 1];
+    private long games;
+    private long ties;
+    private long noSurvivors;
+    private long roundsPlayed;
+
+    public SimulationResult(int players) {
+        wins = new long[players];
+        finalCash = new long[players];
+        survivals = new long[players];
+    }
+
+    /**
+     * Returns a sink that records the round of every retirement into this result.
+     */
+    Recorder recorder() {
+        return new Recorder();
+    }
+
+    /**
+     * Adds a finished game. {@code seats} is the player list taken before the game
+     * started, which gives each player their seat number.
+     */
+    void addGame(Game game, List<Player> seats) {
+        games++;
+        roundsPlayed += game.getCurrentRound();
+        roundHistogram[Math.min(game.getCurrentRound(), Game.MAX_ROUNDS)]++;
+
+        for (Player player : game.getPlayers()) {
+            int seat = seats.indexOf(player);
+            finalCash[seat] += player.getMoney();
+            survivals[seat]++;
+            cashHistogram[Math.min(player.getMoney() / CASH_BUCKET, CASH_BUCKETS - 1)]++;
+        }
+
+        List<Player> winners = game.getWinners();
+        if (winners.isEmpty()) {
+            noSurvivors++;
+        } else if (winners.size() > 1) {
+            ties++;
+        } else {
+            wins[seats.indexOf(winners.get(0))]++;
+        }
+    }
+
+    public void merge(SimulationResult other) {
+        games += other.games;
+        ties += other.ties;
+        noSurvivors += other.noSurvivors;
+        roundsPlayed += other.roundsPlayed;
+        add(wins, other.wins);
+        add(finalCash, other.finalCash);
+        add(survivals, other.survivals);
+        add(bankruptciesByRound, other.bankruptciesByRound);
+        add(cashHistogram, other.cashHistogram);
+        add(roundHistogram, other.roundHistogram);
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    public long getGames() { return games; }
+    public long getTies() { return ties; }
+    public long getNoSurvivors() { return noSurvivors; }
+    public long getWins(int seat) { return wins[seat]; }
+
+    public double getWinRate(int seat) {
+        return games == 0 ? 0 : (double) wins[seat] / games;
+    }
+
+    public double getAverageFinalCash(int seat) {
+        return survivals[seat] == 0 ? 0 : (double) finalCash[seat] / survivals[seat];
+    }
+
+    public long getBankruptcies(int round) {
+        return bankruptciesByRound[round];
+    }
+
+    /**
+     * Returns the number of surviving players who finished with cash in
+     * [{@code bucket * CASH_BUCKET}, {@code (bucket + 1) * CASH_BUCKET}); the last bucket is open-ended.
+     */
+    public long getCashCount(int bucket) {
+        return cashHistogram[bucket];
+    }
+
+    /**
+     * Returns the lower bound of the cash bucket holding quantile {@code q} of surviving players.
+     */
+    public int getCashQuantile(double q) {
+        return quantile(cashHistogram, q) * CASH_BUCKET;
+    }
+
+    /**
+     * Returns the number of rounds that quantile {@code q} of games lasted.
+     */
+    public int getRoundsQuantile(double q) {
+        return quantile(roundHistogram, q);
+    }
+
+    private static int quantile(long[] histogram, double q) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long target = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public int getPlayerCount() {
+        return wins.length;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(wins.length);
+        out.writeLong(games);
+        out.writeLong(ties);
+        out.writeLong(noSurvivors);
+        out.writeLong(roundsPlayed);
+        for (long[] counts : counters()) {
+            for (long count : counts) {
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /**
+     * Reads a result written by {@link #writeTo}.
+     *
+     * @throws IOException if the data is not a result from this version
+     */
+    static SimulationResult readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        int players = in.readInt();
+        if (version != VERSION || players < 1 || players > GameState.MAX_SEATS) {
+            throw new IOException("Invalid simulation result (version " + version + ", " + players + " players)");
+        }
+        SimulationResult result = new SimulationResult(players);
+        result.games = in.readLong();
+        result.ties = in.readLong();
+        result.noSurvivors = in.readLong();
+        result.roundsPlayed = in.readLong();
+        for (long[] counts : result.counters()) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readLong();
+            }
+        }
+        return result;
+    }
+
+    private long[][] counters() {
+        return new long[][] {wins, finalCash, survivals, bankruptciesByRound, cashHistogram, roundHistogram};
+    }
+
+    public String summary(List<String> playerNames) {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Games: %d, ties: %d, no survivors: %d, average rounds: %.1f%n",
+                games, ties, noSurvivors, games == 0 ? 0 : (double) roundsPlayed / games));
+        for (int seat = 0; seat < wins.length; seat++) {
+            summary.append(String.format("%s - win rate %.4f - average final cash $%.0f%n",
+                    playerNames.get(seat), getWinRate(seat), getAverageFinalCash(seat)));
+        }
+        long bankruptcies = 0;
+        for (long count : bankruptciesByRound) {
+            bankruptcies += count;
+        }
+        summary.append(String.format("Bankruptcies: %d%n", bankruptcies));
+        summary.append(String.format("Final cash quartiles: $%d / $%d / $%d%n",
+                getCashQuantile(0.25), getCashQuantile(0.5), getCashQuantile(0.75)));
+        summary.append(String.format("Game length quartiles: %d / %d / %d rounds%n",
+                getRoundsQuantile(0.25), getRoundsQuantile(0.5), getRoundsQuantile(0.75)));
+        return summary.toString();
+    }
+
+    /**
+     * Event sink used while simulating; it only listens for rounds and retirements.
+     */
+    class Recorder implements GameEvents {
+        private int round;
+
+        @Override
+        public void roundStarted(int round) {
+            this.round = round;
+        }
+
+        @Override
+        public void playerRetired(Player player) {
+            bankruptciesByRound[round]++;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders the same text as {@link Game#getGameStatus()} and
+ * {@link Game#getAllPlayersStatus()}, or the same information as JSON, for callers that
+ * ask far more often than the game changes, such as spectator feeds.
+ * <p>
+ * Each square's line and each player's line is kept once rendered, along with the
+ * owner, houses, money, position and jail state it shows. A call compares those few values
+ * against the {@link GameState} arrays and re-renders only the entries that changed;
+ * when none did, the whole board or player block is reused as is. Output goes into a
+ * reusable {@link StringBuilder}, and nothing is formatted with {@code String.format}.
+ * <p>
+ * A view reads the game without locking, so it must be used on the thread that plays
+ * the game, or on a {@link GameActor}'s published status instead.
+ */
+final class StatusView {
+    private static final short UNSEEN = -2;
+
+    private final Game game;
+    private final GameState state;
+    private final StringBuilder out = new StringBuilder(1024);
+    private final StringBuilder line = new StringBuilder(64);
+
+    private final short[] shownOwner;
+    private final byte[] shownHouses;
+    private final String[] squareText;
+    private final String[] squareJson;
+    private String boardText;
+    private String boardJson;
+
+    private final int[] shownMoney;
+    private final short[] shownPosition;
+    private final boolean[] shownInJail;
+    private final String[] playerText;
+    private final String[] playerJson;
+    private int[] shownRoster = new int[0];
+    private String playersText;
+    private String playersJson;
+
+    public StatusView(Game game) {
+        this.game = game;
+        this.state = game.getState();
+        int squares = game.getBoardSize() + 1;
+        this.shownOwner = new short[squares];
+        Arrays.fill(shownOwner, UNSEEN);
+        this.shownHouses = new byte[squares];
+        this.squareText = new String[squares];
+        this.squareJson = new String[squares];
+
+        int seats = state.seats();
+        this.shownMoney = new int[seats];
+        this.shownPosition = new short[seats];
+        this.shownInJail = new boolean[seats];
+        this.playerText = new String[seats];
+        this.playerJson = new String[seats];
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the text of {@link Game#getGameStatus()}.
+     */
+    public String getGameStatus() {
+        out.setLength(0);
+        return appendGameStatus(out).toString();
+    }
+
+    /**
+     * Returns the text of {@link Game#getAllPlayersStatus()}.
+     */
+    public String getAllPlayersStatus() {
+        out.setLength(0);
+        return appendPlayersStatus(out).toString();
+    }
+
+    public StringBuilder appendGameStatus(StringBuilder target) {
+        target.append("Current Round: ").append(game.getCurrentRound()).append('\n');
+        target.append("Current Player: ").append(game.getCurrentPlayer().getName()).append('\n');
+        target.append("Board Status:\n");
+        if (refreshSquares()) {
+            boardText = null;
+            boardJson = null;
+        }
+        if (boardText == null) {
+            line.setLength(0);
+            for (int position = 1; position < squareText.length; position++) {
+                line.append(squareText[position]);
+            }
+            boardText = line.toString();
+        }
+        return target.append(boardText);
+    }
+
+    public StringBuilder appendPlayersStatus(StringBuilder target) {
+        if (refreshPlayers()) {
+            playersText = null;
+            playersJson = null;
+        }
+        if (playersText == null) {
+            line.setLength(0);
+            for (int seat : shownRoster) {
+                line.append(playerText[seat]);
+            }
+            playersText = line.toString();
+        }
+        return target.append(playersText);
+    }
+
+    /**
+     * Returns the round, current player, board and players as one JSON object:
+     * <pre>
+     * {"round":3,"currentPlayer":"Ann",
+     *  "squares":[{"position":1,"name":"Go"},{"position":2,"name":"Central","owner":"Ann"},...],
+     *  "players":[{"name":"Ann","money":1320,"position":2,"inJail":false},...]}
+     * </pre>
+     * Unowned properties have {@code "owner":null}; other squares have no owner field.
+     * Properties with buildings also have {@code "houses"}, 5 meaning a hotel.
+     */
+    public String toJson() {
+        out.setLength(0);
+        return appendJson(out).toString();
+    }
+
+    public StringBuilder appendJson(StringBuilder target) {
+        target.append("{\"round\":").append(game.getCurrentRound()).append(",\"currentPlayer\":");
+        appendJsonString(target, game.getCurrentPlayer().getName());
+        if (refreshSquares()) {
+            boardText = null;
+            boardJson = null;
+        }
+        if (boardJson == null) {
+            line.setLength(0);
+            for (int position = 1; position < squareJson.length; position++) {
+                line.append(position == 1 ? "" : ",").append(squareJson[position]);
+            }
+            boardJson = line.toString();
+        }
+        if (refreshPlayers()) {
+            playersText = null;
+            playersJson = null;
+        }
+        if (playersJson == null) {
+            line.setLength(0);
+            for (int i = 0; i < shownRoster.length; i++) {
+                line.append(i == 0 ? "" : ",").append(playerJson[shownRoster[i]]);
+            }
+            playersJson = line.toString();
+        }
+        return target.append(",\"squares\":[").append(boardJson)
+                .append("],\"players\":[").append(playersJson).append("]}");
+    }
+
+    /**
+     * Re-renders the squares whose owner or houses changed and returns true if any did.
+     */
+    private boolean refreshSquares() {
+        boolean changed = false;
+        short[] owners = state.ownerBySquare;
+        byte[] houses = state.houses;
+        for (int position = 1; position < shownOwner.length; position++) {
+            if (owners[position] != shownOwner[position] || houses[position] != shownHouses[position]) {
+                shownOwner[position] = owners[position];
+                shownHouses[position] = houses[position];
+                renderSquare(position);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void renderSquare(int position) {
+        Square square = game.getSquare(position);
+        boolean property = game.isProperty(position);
+        Player owner = game.getOwner(position);
+
+        line.setLength(0);
+        line.append(position).append(". ").append(square.getName());
+        if (property) {
+            line.append(" (Owner: ").append(owner != null ? owner.getName() : "None").append(')');
+            Game.appendHouses(line, shownHouses[position]);
+        }
+        squareText[position] = line.append('\n').toString();
+
+        line.setLength(0);
+        line.append("{\"position\":").append(position).append(",\"name\":");
+        appendJsonString(line, square.getName());
+        if (property) {
+            line.append(",\"owner\":");
+            if (owner == null) {
+                line.append("null");
+            } else {
+                appendJsonString(line, owner.getName());
+            }
+            if (shownHouses[position] > 0) {
+                line.append(",\"houses\":").append(shownHouses[position]);
+            }
+        }
+        squareJson[position] = line.append('}').toString();
+    }
+
+    /**
+     * Re-renders the players whose money, position or jail state changed and returns
+     * true if any did, or if a player has left the game.
+     */
+    private boolean refreshPlayers() {
+        List<Player> players = game.activePlayers();
+        boolean changed = players.size() != shownRoster.length;
+        if (changed) {
+            shownRoster = new int[players.size()];
+        }
+        for (int i = 0; i < shownRoster.length; i++) {
+            int seat = players.get(i).getSeat();
+            if (shownRoster[i] != seat || playerText[seat] == null) {
+                shownRoster[i] = seat;
+                changed = true;
+                renderPlayer(seat);
+            } else if (state.money[seat] != shownMoney[seat] || state.position[seat] != shownPosition[seat]
+                    || state.isInJail(seat) != shownInJail[seat]) {
+                changed = true;
+                renderPlayer(seat);
+            }
+        }
+        return changed;
+    }
+
+    private void renderPlayer(int seat) {
+        Player player = game.getSeat(seat);
+        shownMoney[seat] = state.money[seat];
+        shownPosition[seat] = state.position[seat];
+        shownInJail[seat] = state.isInJail(seat);
+
+        line.setLength(0);
+        line.append(player.getName()).append(" - $").append(shownMoney[seat])
+                .append(" - Position: ").append(shownPosition[seat]);
+        if (shownInJail[seat]) {
+            line.append(" (In Jail)");
+        }
+        playerText[seat] = line.append('\n').toString();
+
+        line.setLength(0);
+        line.append("{\"name\":");
+        appendJsonString(line, player.getName());
+        line.append(",\"money\":").append(shownMoney[seat])
+                .append(",\"position\":").append(shownPosition[seat])
+                .append(",\"inJail\":").append(shownInJail[seat]).append('}');
+        playerJson[seat] = line.toString();
+    }
+
+    static void appendJsonString(StringBuilder target, String value) {
+        target.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                target.append('\\').append(c);
+            } else if (c < 0x20) {
+                target.append("\\u00");
+                target.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                target.append(c);
+            }
+        }
+        target.append('"');
+    }
+}
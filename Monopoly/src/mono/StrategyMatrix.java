@@ -0,0 +1,98 @@
+package mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays every pairing of strategies head to head and reports how often each one beats
+ * each other one.
+ * <p>
+ * Each ordered pairing runs as a parallel {@link Tournament}, and each pair of
+ * strategies plays with both seatings so the first player's advantage cancels out. All
+ * pairings share the same master seed, so they see the same dice, which keeps the
+ * differences between rows down to the strategies themselves. Strategies must be safe
+ * to share between threads.
+ */
+class StrategyMatrix {
+    private final List<String> names;
+    private final List<PlayerStrategy> strategies;
+
+    public StrategyMatrix(Map<String, PlayerStrategy> strategies) {
+        this.names = new ArrayList<>(strategies.keySet());
+        this.strategies = new ArrayList<>(strategies.values());
+    }
+
+    /**
+     * Returns the win rates: entry {@code [i][j]} is the share of games strategy
+     * {@code i} won against strategy {@code j}, counting ties as half a win. The
+     * diagonal is left at 0.5.
+     */
+    public double[][] run(long gamesPerSeating, long masterSeed) {
+        int count = strategies.size();
+        SimulationResult[][] results = new SimulationResult[count][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                if (i != j) {
+                    Simulation simulation = new Simulation(Arrays.asList(names.get(i), names.get(j)),
+                            new PerSeatStrategy(strategies.get(i), strategies.get(j)));
+                    results[i][j] = new Tournament(simulation, masterSeed).run(gamesPerSeating);
+                }
+            }
+        }
+
+        double[][] winRates = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            winRates[i][i] = 0.5;
+            for (int j = 0; j < count; j++) {
+                if (i != j) {
+                    double wins = results[i][j].getWins(0) + results[j][i].getWins(1)
+                            + 0.5 * (results[i][j].getTies() + results[j][i].getTies());
+                    winRates[i][j] = wins / (2.0 * gamesPerSeating);
+                }
+            }
+        }
+        return winRates;
+    }
+
+    public String format(double[][] winRates) {
+        int width = 8;
+        for (String name : names) {
+            width = Math.max(width, name.length() + 2);
+        }
+        StringBuilder table = new StringBuilder(String.format("%-" + width + "s", ""));
+        for (String name : names) {
+            table.append(String.format("%" + width + "s", name));
+        }
+        table.append(String.format("%n"));
+        for (int i = 0; i < names.size(); i++) {
+            table.append(String.format("%-" + width + "s", names.get(i)));
+            for (int j = 0; j < names.size(); j++) {
+                table.append(String.format("%" + width + ".3f", winRates[i][j]));
+            }
+            table.append(String.format("%n"));
+        }
+        return table.toString();
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 3211L;
+
+        Map<String, PlayerStrategy> bots = new LinkedHashMap<>();
+        bots.put("always", new AlwaysBuyStrategy());
+        bots.put("cash500", new CashThresholdStrategy(500));
+        bots.put("roi8", new RoiStrategy(0.08));
+        bots.put("ev", new ExpectedValueStrategy(GameBoard.standard()));
+        StrategyMatrix matrix = new StrategyMatrix(bots);
+
+        long start = System.nanoTime();
+        double[][] winRates = matrix.run(games, seed);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d games per seating in %d ms%n", games, elapsed / 1_000_000);
+        System.out.print(matrix.format(winRates));
+    }
+}
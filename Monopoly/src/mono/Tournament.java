@@ -0,0 +1,78 @@
+package mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Shards a batch of simulated games across a {@link ForkJoinPool} and merges the
+ * per-shard results. Game {@code i} always uses {@code GameRandom.forGame(seed, i)},
+ * so a run is reproducible bit for bit from its master seed whatever the pool size.
+ */
+class Tournament {
+    private static final int GAMES_PER_SHARD = 512;
+
+    private final Simulation simulation;
+    private final long masterSeed;
+    private GameArchive.Writer archive;
+
+    public Tournament(Simulation simulation, long masterSeed) {
+        this.simulation = simulation;
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * Also appends every game to {@code archive}, one batch per shard.
+     */
+    public Tournament archiveTo(GameArchive.Writer archive) {
+        this.archive = archive;
+        return this;
+    }
+
+    public SimulationResult run(long games) {
+        return run(games, ForkJoinPool.commonPool());
+    }
+
+    public SimulationResult run(long games, ForkJoinPool pool) {
+        return run(0, games, pool);
+    }
+
+    /**
+     * Plays games {@code firstGame} to {@code firstGame + games - 1} of the run, the
+     * share of a larger run that one {@link SimulationWorker} is given.
+     */
+    public SimulationResult run(long firstGame, long games, ForkJoinPool pool) {
+        return pool.invoke(new Shard(firstGame, games));
+    }
+
+    private class Shard extends RecursiveTask<SimulationResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final long firstGame;
+        private final long games;
+
+        Shard(long firstGame, long games) {
+            this.firstGame = firstGame;
+            this.games = games;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (games <= GAMES_PER_SHARD) {
+                try {
+                    return simulation.run(firstGame, games, masterSeed, archive);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long half = games / 2;
+            Shard left = new Shard(firstGame, half);
+            Shard right = new Shard(firstGame + half, games - half);
+            right.fork();
+            SimulationResult result = left.compute();
+            result.merge(right.join());
+            return result;
+        }
+    }
+}